@@ -3,6 +3,45 @@ package de.siramac.hexomato.agent;
 import de.siramac.hexomato.domain.Game;
 import de.siramac.hexomato.domain.Node;
 
-public interface Agent {
+public interface Agent extends AutoCloseable {
     Node getMove(Game game);
+
+    /**
+     * Like {@link #getMove(Game)}, with the thinking time shortened to budgetFactor in (0, 1] of the usual
+     * budget and ending by deadlineMillis ({@link System#currentTimeMillis()}), e.g. while the server is busy.
+     */
+    default Node getMove(Game game, double budgetFactor, long deadlineMillis) {
+        return getMove(game);
+    }
+
+    /**
+     * Number of playouts of all searches of the agent so far, simulations for agents without playouts,
+     * 0 if the agent doesn't count them.
+     */
+    default long getNumPlayouts() {
+        return 0;
+    }
+
+    /**
+     * True while the agent searches a move, then it must not be closed to free its resources.
+     */
+    default boolean isSearching() {
+        return false;
+    }
+
+    /**
+     * Called after the own move, the agent may think in the background until the opponent has moved.
+     */
+    default void ponder(Game game) {
+    }
+
+    default void stopPondering() {
+    }
+
+    /**
+     * Releases the resources of the agent, they are acquired again if the agent is used afterward.
+     */
+    @Override
+    default void close() {
+    }
 }
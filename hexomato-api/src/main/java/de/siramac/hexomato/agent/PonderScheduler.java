@@ -0,0 +1,119 @@
+package de.siramac.hexomato.agent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs the pondering of all agents on one daemon thread, so the background searches never take more than
+ * one core, whatever the number of games:
+ * - the pondering agents take turns, each runs a short slice of its search at a time
+ * - while any agent searches a move, pondering waits, so it only uses a core which no move needs
+ * Thread priorities are not used, HotSpot ignores them on Linux.
+ */
+@Slf4j
+public final class PonderScheduler {
+
+    public static final PonderScheduler INSTANCE = new PonderScheduler();
+
+    /**
+     * One slice of a background search, returns false once the search is over.
+     */
+    @FunctionalInterface
+    public interface Slice {
+        boolean run();
+    }
+
+    private final Deque<Task> tasks = new ArrayDeque<>(); // waiting for their next slice, round robin
+    private int numSearches;
+    private Thread thread; // started with the first task
+
+    private PonderScheduler() {
+    }
+
+    /**
+     * Queues a background search, its slices run until one returns false or the task is cancelled.
+     */
+    public synchronized Task submit(Slice slice) {
+        Task task = new Task(slice);
+        tasks.add(task);
+        if (thread == null) {
+            thread = Thread.ofPlatform().name("ponder").daemon().start(this::run);
+        }
+        notifyAll();
+        return task;
+    }
+
+    /**
+     * Called before an agent searches a move, pondering pauses after the running slice.
+     */
+    public synchronized void searchStarted() {
+        numSearches++;
+    }
+
+    public synchronized void searchFinished() {
+        numSearches--;
+        notifyAll();
+    }
+
+    private void run() {
+        while (true) {
+            Task task;
+            synchronized (this) {
+                while (tasks.isEmpty() || numSearches > 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                task = tasks.poll();
+            }
+            boolean more;
+            try {
+                more = task.slice.run();
+            } catch (RuntimeException e) {
+                log.error("Pondering failed", e);
+                more = false;
+            }
+            synchronized (this) {
+                if (more && !task.cancelled) {
+                    tasks.add(task);
+                } else {
+                    task.done.complete(null);
+                }
+            }
+        }
+    }
+
+    public final class Task {
+
+        private final Slice slice;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile boolean cancelled;
+
+        private Task(Slice slice) {
+            this.slice = slice;
+        }
+
+        /**
+         * Ends the background search and waits for its running slice, a waiting task is dropped at once.
+         */
+        public void cancel() {
+            cancelled = true;
+            synchronized (PonderScheduler.this) {
+                if (tasks.remove(this)) {
+                    done.complete(null);
+                }
+            }
+            done.join();
+        }
+
+        public boolean isDone() {
+            return done.isDone();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package de.siramac.hexomato.agent;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Statistics of one search of an agent, passed to the search listener of its config. Pondering and moves of
+ * the opening book are not reported.
+ * - depth: number of actions from the root to the leaf of a simulation
+ * - rootEntropy: entropy of the visit distribution of the root actions in nats, 0 if one action got all
+ * visits, ln(actions) if the visits are uniform
+ * - bestMoveWinRate: mean value of the played action for the player of the agent
+ * - allocatedBytes: heap allocated by the search threads during the search
+ */
+@Getter
+@Builder
+public class SearchStats {
+
+    private final long playouts;
+    private final long wallNanos;
+    private final int treeNodes;
+    private final int maxDepth;
+    private final double averageDepth;
+    private final double rootEntropy;
+    private final double bestMoveWinRate;
+    private final long allocatedBytes;
+
+    public double getPlayoutsPerSecond() {
+        return playouts / (Math.max(1L, wallNanos) / 1e9);
+    }
+}
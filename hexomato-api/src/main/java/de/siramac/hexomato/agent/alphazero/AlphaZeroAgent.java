@@ -0,0 +1,238 @@
+package de.siramac.hexomato.agent.alphazero;
+
+import de.siramac.hexomato.agent.Agent;
+import de.siramac.hexomato.agent.PonderScheduler;
+import de.siramac.hexomato.agent.SearchStats;
+import de.siramac.hexomato.agent.mcts.ArenaPool;
+import de.siramac.hexomato.agent.mcts.BudgetTracker;
+import de.siramac.hexomato.agent.mcts.SearchBudget;
+import de.siramac.hexomato.agent.mcts.TreeArena;
+import de.siramac.hexomato.agent.mcts.Util;
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.domain.Node;
+import de.siramac.hexomato.domain.Player;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.NONE;
+import static de.siramac.hexomato.agent.mcts.TreeArena.ROOT;
+import static de.siramac.hexomato.agent.mcts.Util.getArgMax;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+
+/**
+ * AlphaZero-style agent: PUCT search guided by the policy and evaluated by the value of a
+ * {@link PolicyValueNet} instead of playouts. The workers search one shared tree and send their leaves to a
+ * {@link BatchEvaluator}, so a forward pass evaluates the leaves of several threads at once.
+ * <p>
+ * Every search starts with a new tree. Each search logs the number of network evaluations, the evaluations
+ * per second and the average batch size, the counters of all searches are kept by the evaluator.
+ */
+@Slf4j
+public class AlphaZeroAgent implements Agent {
+
+    // the search threads mostly wait for a batch, so they are not bounded by the number of cores
+    private static final ExecutorService SEARCH_THREADS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "alphazero-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Player player;
+    private final AlphaZeroConfig config;
+    private final BitBoard rootState;
+    @Getter
+    private final BatchEvaluator evaluator;
+    private final PuctWorker[] workers;
+    private final ArenaPool arenaPool; // null if the agent allocates its own tree
+    private TreeArena tree; // null while the agent is closed
+    private volatile long numSimulations; // of all searches
+    private volatile boolean searching;
+
+    public AlphaZeroAgent(Player player, AlphaZeroConfig config) {
+        this(player, config, null);
+    }
+
+    /**
+     * @param arenaPool the tree is taken from the pool and returned by {@link #close()}
+     */
+    public AlphaZeroAgent(Player player, AlphaZeroConfig config, ArenaPool arenaPool) {
+        if (config.getNetwork() == null) {
+            throw new IllegalArgumentException("AlphaZero agent without network");
+        }
+        this.player = player;
+        this.config = config;
+        this.arenaPool = arenaPool;
+        this.rootState = new BitBoard();
+        this.evaluator = new BatchEvaluator(config.getNetwork(), config.getBatchSize());
+        this.workers = new PuctWorker[Math.max(1, config.getNumThreads())];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new PuctWorker(evaluator);
+        }
+    }
+
+    @Override
+    public Node getMove(Game game) {
+        return getMove(game, 1.0, Long.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized Node getMove(Game game, double budgetFactor, long deadlineMillis) {
+        rootState.reset(game.getBoard(), player, game.getWinner());
+        int cell = searchRootState(budgetFactor, deadlineMillis);
+        return game.getBoard()[BitBoard.row(cell)][BitBoard.col(cell)];
+    }
+
+    /**
+     * Returns the cell to play in the position, e.g. for positions which are not part of a game.
+     */
+    public synchronized int getAction(BitBoard position) {
+        rootState.copyFrom(position);
+        return searchRootState(1.0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of simulations, every simulation evaluates at most one leaf with the network.
+     */
+    @Override
+    public long getNumPlayouts() {
+        return numSimulations;
+    }
+
+    @Override
+    public boolean isSearching() {
+        return searching;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (tree != null && arenaPool != null) {
+            arenaPool.release(tree);
+        }
+        tree = null;
+    }
+
+    private int searchRootState(double budgetFactor, long deadlineMillis) {
+        if (tree == null) {
+            tree = arenaPool != null
+                    ? arenaPool.acquire(config.getNodeBudget(), false, false)
+                    : new TreeArena(config.getNodeBudget(), false);
+        }
+        tree.clear();
+        SearchBudget budget = config.getBudget();
+        if (budgetFactor < 1.0) {
+            budget = budget.scale(budgetFactor);
+        }
+        if (deadlineMillis != Long.MAX_VALUE) {
+            budget = budget.limitTime(deadlineMillis - System.currentTimeMillis());
+        }
+        searching = true;
+        try {
+            long startNanos = System.nanoTime();
+            search(new BudgetTracker(budget, new TreeArena[]{tree}));
+            int cell = selectMove();
+            if (config.getSearchListener() != null) {
+                config.getSearchListener().accept(getSearchStats(cell, System.nanoTime() - startNanos));
+            }
+            return cell;
+        } finally {
+            searching = false;
+        }
+    }
+
+    private void search(BudgetTracker budget) {
+        long startNanos = System.nanoTime();
+        long startEvaluations = evaluator.getNumEvaluations();
+        long startBatches = evaluator.getNumBatches();
+        BitBoard searchRootState = rootState.copy(); // the workers only read it
+        evaluator.join(workers.length);
+        PonderScheduler.INSTANCE.searchStarted(); // the pondering of the other agents waits
+        try {
+            if (workers.length == 1) {
+                workers[0].search(tree, searchRootState, config, budget);
+            } else {
+                List<Future<?>> futures = new ArrayList<>();
+                for (PuctWorker worker : workers) {
+                    futures.add(SEARCH_THREADS.submit(() -> worker.search(tree, searchRootState, config, budget)));
+                }
+                awaitAll(futures);
+            }
+        } finally {
+            PonderScheduler.INSTANCE.searchFinished();
+        }
+
+        double seconds = Math.max(1L, System.nanoTime() - startNanos) / 1e9;
+        long evaluations = evaluator.getNumEvaluations() - startEvaluations;
+        long batches = evaluator.getNumBatches() - startBatches;
+        int simulations = Arrays.stream(workers).mapToInt(PuctWorker::getNumSimulations).sum();
+        numSimulations += simulations;
+        log.info("Number of simulations: {}, network evaluations: {} ({} per second), average batch size: {}, "
+                        + "threads: {}, tree size: {}/{} nodes",
+                simulations, evaluations,
+                Math.round(evaluations / seconds), String.format("%.1f", (double) evaluations / Math.max(1, batches)),
+                workers.length, tree.getSize(), config.getNodeBudget());
+        if (tree.isFull()) {
+            log.info("Search stopped, the tree is full");
+        } else if (budget.isStoppedEarly()) {
+            log.info("Search stopped early, the most visited action cannot be overtaken anymore");
+        }
+    }
+
+    /**
+     * Returns the most visited action. Empty cells without a node count as not visited, so a search which
+     * could not evaluate the root still plays a legal cell.
+     */
+    private int selectMove() {
+        double[] visitsByCell = new double[NUM_CELLS];
+        tree.addChildVisits(ROOT, visitsByCell);
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            if (!rootState.isEmpty(cell)) {
+                visitsByCell[cell] = Double.NEGATIVE_INFINITY;
+            }
+        }
+        return getArgMax(visitsByCell);
+    }
+
+    /**
+     * Returns the statistics of the last search, which chose cell.
+     */
+    private SearchStats getSearchStats(int cell, long wallNanos) {
+        double[] visitsByCell = new double[NUM_CELLS];
+        tree.addChildVisits(ROOT, visitsByCell);
+        int child = tree.findChild(ROOT, cell);
+        float bestVisits = child != NONE ? tree.getVisits(child) : 0f;
+        long simulations = Arrays.stream(workers).mapToLong(PuctWorker::getNumSimulations).sum();
+        long sumDepth = Arrays.stream(workers).mapToLong(PuctWorker::getSumDepth).sum();
+        return SearchStats.builder()
+                .playouts(simulations)
+                .wallNanos(wallNanos)
+                .treeNodes(tree.getSize())
+                .maxDepth(Arrays.stream(workers).mapToInt(PuctWorker::getMaxDepth).max().orElse(0))
+                .averageDepth(simulations > 0 ? (double) sumDepth / simulations : 0.0)
+                .rootEntropy(Util.getEntropy(visitsByCell))
+                .bestMoveWinRate(bestVisits > 0f ? tree.getValues(child) / bestVisits : 0.5)
+                .allocatedBytes(Arrays.stream(workers).mapToLong(PuctWorker::getAllocatedBytes).sum())
+                .build();
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed", e.getCause());
+        }
+    }
+}
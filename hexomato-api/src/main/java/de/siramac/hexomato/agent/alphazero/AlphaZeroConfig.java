@@ -0,0 +1,63 @@
+package de.siramac.hexomato.agent.alphazero;
+
+import de.siramac.hexomato.agent.SearchStats;
+import de.siramac.hexomato.agent.mcts.SearchBudget;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.function.Consumer;
+
+/**
+ * Settings of one {@link AlphaZeroAgent}, create them with AlphaZeroConfig.builder(). The network is required.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class AlphaZeroConfig {
+
+    private final PolicyValueNet network;
+
+    /**
+     * Limits of every search of the agent, a playout is one simulation.
+     */
+    @Builder.Default
+    private final SearchBudget budget = SearchBudget.DEFAULT;
+
+    /**
+     * Number of search threads. They wait for the network most of the time, numThreads / batchSize
+     * batches are evaluated at the same time.
+     */
+    @Builder.Default
+    private final int numThreads = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximal number of positions of one forward pass of the network.
+     */
+    @Builder.Default
+    private final int batchSize = 8;
+
+    /**
+     * c_puct: weight of the prior of the network against the mean value of an action.
+     */
+    @Builder.Default
+    private final double explorationConstant = 1.5;
+
+    /**
+     * Visits added to an action while a thread waits for the evaluation of a leaf below it, so the threads
+     * of a batch search different leaves.
+     */
+    @Builder.Default
+    private final double virtualLoss = 3.0;
+
+    /**
+     * Maximal number of nodes of the tree, an evaluated leaf adds a node for every empty cell. The search
+     * stops when the tree is full.
+     */
+    @Builder.Default
+    private final int nodeBudget = 1 << 20;
+
+    /**
+     * Receives the statistics of every search, e.g. to publish them as metrics, null if there is none.
+     */
+    @Builder.Default
+    private final Consumer<SearchStats> searchListener = null;
+}
@@ -0,0 +1,188 @@
+package de.siramac.hexomato.agent.alphazero;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+
+/**
+ * Collects the leaf evaluations of the search threads into batches for one forward pass of the network.
+ * A thread puts its {@link Request} into the pending batch and waits. The thread which fills the batch
+ * evaluates it for all of them with its own workspace, so up to numThreads / maxBatchSize batches are
+ * evaluated at the same time and no extra thread is needed.
+ * <p>
+ * A batch is full at maxBatchSize requests or when every participating thread waits. Threads join before
+ * the search and leave after it, a leaving thread evaluates the pending batch if the others would wait for it.
+ */
+public class BatchEvaluator {
+
+    private final PolicyValueNet net;
+    @Getter
+    private final int maxBatchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition evaluated = lock.newCondition();
+    private final Request[] pending;
+    private int numPending;
+    private int numParticipants;
+
+    private final AtomicLong numEvaluations = new AtomicLong();
+    private final AtomicLong numBatches = new AtomicLong();
+    private final AtomicLong evaluationNanos = new AtomicLong();
+
+    public BatchEvaluator(PolicyValueNet net, int maxBatchSize) {
+        this.net = net;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.pending = new Request[this.maxBatchSize];
+    }
+
+    /**
+     * Returns a request of one thread, it is reused for all its evaluations.
+     */
+    public Request createRequest() {
+        return new Request(new PolicyValueNet.Workspace(net, maxBatchSize));
+    }
+
+    /**
+     * Adds threads which will call {@link #evaluate} until they {@link #leave}.
+     */
+    public void join(int numThreads) {
+        lock.lock();
+        try {
+            numParticipants += numThreads;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void leave(Request request) {
+        int batchSize = 0;
+        lock.lock();
+        try {
+            numParticipants--;
+            if (numPending > 0 && numPending >= Math.min(maxBatchSize, numParticipants)) {
+                batchSize = takePending(request);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batchSize > 0) {
+            evaluateBatch(request, batchSize);
+        }
+    }
+
+    /**
+     * Evaluates the position encoded in the input of the request, returns when its policy and value are set.
+     */
+    public void evaluate(Request request) {
+        int batchSize = 0;
+        lock.lock();
+        try {
+            request.done = false;
+            request.failed = false;
+            pending[numPending++] = request;
+            if (numPending >= Math.min(maxBatchSize, numParticipants)) {
+                batchSize = takePending(request);
+            } else {
+                while (!request.done) {
+                    evaluated.awaitUninterruptibly();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batchSize > 0) {
+            evaluateBatch(request, batchSize);
+        }
+        if (request.failed) {
+            throw new IllegalStateException("Network evaluation failed");
+        }
+    }
+
+    public long getNumEvaluations() {
+        return numEvaluations.get();
+    }
+
+    public long getNumBatches() {
+        return numBatches.get();
+    }
+
+    /**
+     * Time spent in forward passes, summed over the evaluating threads.
+     */
+    public long getEvaluationNanos() {
+        return evaluationNanos.get();
+    }
+
+    private int takePending(Request evaluator) {
+        int batchSize = numPending;
+        System.arraycopy(pending, 0, evaluator.batch, 0, batchSize);
+        Arrays.fill(pending, 0, batchSize, null);
+        numPending = 0;
+        return batchSize;
+    }
+
+    private void evaluateBatch(Request evaluator, int batchSize) {
+        Request[] batch = evaluator.batch;
+        PolicyValueNet.Workspace workspace = evaluator.workspace;
+        boolean failed = true;
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < batchSize; i++) {
+                workspace.setInput(i, batch[i].input);
+            }
+            net.evaluate(workspace, batchSize, evaluator.batchLogits, evaluator.batchValues);
+            for (int i = 0; i < batchSize; i++) {
+                System.arraycopy(evaluator.batchLogits, i * NUM_CELLS, batch[i].logits, 0, NUM_CELLS);
+                batch[i].value = evaluator.batchValues[i];
+            }
+            failed = false;
+        } finally {
+            evaluationNanos.addAndGet(System.nanoTime() - start);
+            numEvaluations.addAndGet(batchSize);
+            numBatches.incrementAndGet();
+            lock.lock();
+            try {
+                for (int i = 0; i < batchSize; i++) {
+                    batch[i].failed = failed;
+                    batch[i].done = true;
+                    batch[i] = null;
+                }
+                evaluated.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Evaluation of one thread: the thread encodes its position into input, after {@link #evaluate} the
+     * logits by canonical cell and the value for the player to move are set. The buffers for evaluating a
+     * whole batch belong to the request as well.
+     */
+    public static class Request {
+        @Getter
+        private final float[] input = new float[PolicyValueNet.INPUT_SIZE];
+        @Getter
+        private final float[] logits = new float[NUM_CELLS];
+        @Getter
+        private float value;
+        private boolean done; // guarded by the lock of the evaluator
+        private boolean failed;
+
+        private final PolicyValueNet.Workspace workspace;
+        private final Request[] batch;
+        private final float[] batchLogits;
+        private final float[] batchValues;
+
+        private Request(PolicyValueNet.Workspace workspace) {
+            this.workspace = workspace;
+            this.batch = new Request[workspace.getMaxBatchSize()];
+            this.batchLogits = new float[workspace.getMaxBatchSize() * NUM_CELLS];
+            this.batchValues = new float[workspace.getMaxBatchSize()];
+        }
+    }
+}
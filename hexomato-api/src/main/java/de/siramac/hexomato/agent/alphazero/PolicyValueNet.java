@@ -0,0 +1,351 @@
+package de.siramac.hexomato.agent.alphazero;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Player;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.Game.BOARD_SIZE;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+
+/**
+ * Convolutional policy/value network over the hex grid, evaluated in pure Java for batches of positions.
+ * <p>
+ * The position is seen by the player to move, who always connects the top and the bottom edge: the board
+ * of PLAYER_2 is transposed, which keeps the hex neighbourhood. The grid is padded by one cell on every side,
+ * the padding of the input holds the edges as stones:
+ * - plane 0: own stones, the top and the bottom padding
+ * - plane 1: stones of the opponent, the left and the right padding
+ * - plane 2: 1 on the board
+ * A convolution covers a cell and its six neighbours. The layers:
+ * - input convolution to numChannels channels, ReLU
+ * - numBlocks residual blocks: two convolutions, ReLU after the first and after adding the input of the block
+ * - policy head: 1x1 convolution to one logit per cell
+ * - value head: 1x1 convolution, ReLU, dense layer of valueHidden units, ReLU, dense layer to one unit, tanh
+ * Batch normalization of the training is folded into the biases and weights.
+ * <p>
+ * File format, big endian:
+ * - header: MAGIC, VERSION, BOARD_SIZE, numChannels, numBlocks, valueHidden (6 ints)
+ * - weights (floats) in the order of the layers, every layer its weights then its biases, convolution
+ * weights indexed by [out channel][in channel][tap], taps: the cell, then E, NE, NW, W, SW, SE
+ * The weights are immutable after loading, one network is shared by all agents and threads. The
+ * activations live in a {@link Workspace} per thread.
+ */
+public class PolicyValueNet {
+
+    static final int MAGIC = 0x4858_4E4E; // HXNN
+    static final int VERSION = 1;
+    public static final int INPUT_PLANES = 3;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+    private static final int SIDE = BOARD_SIZE + 2; // with padding
+    static final int AREA = SIDE * SIDE;
+    public static final int INPUT_SIZE = INPUT_PLANES * AREA;
+    private static final int[] TAP_OFFSETS = {0, 1, -SIDE + 1, -SIDE, -1, SIDE - 1, SIDE};
+    private static final int TAPS = TAP_OFFSETS.length;
+    private static final int FIRST = SIDE + 1; // first cell of the board
+    private static final int LENGTH = (BOARD_SIZE - 1) * SIDE + BOARD_SIZE; // to the last cell of the board
+    private static final int[] PADDING = createPadding();
+
+    @Getter
+    private final int numChannels;
+    @Getter
+    private final int numBlocks;
+    @Getter
+    private final int valueHidden;
+    private final float[] weights; // all layers, see the file format
+    private final int inputOffset;
+    private final int blocksOffset;
+    private final int policyOffset;
+    private final int valueOffset;
+    private final int hiddenOffset;
+    private final int outputOffset;
+
+    private PolicyValueNet(int numChannels, int numBlocks, int valueHidden, float[] weights) {
+        if (numChannels <= 0 || numBlocks < 0 || valueHidden <= 0) {
+            throw new IllegalArgumentException("Invalid network shape " + numChannels + "x" + numBlocks
+                    + ", value head " + valueHidden);
+        }
+        this.numChannels = numChannels;
+        this.numBlocks = numBlocks;
+        this.valueHidden = valueHidden;
+        this.inputOffset = 0;
+        this.blocksOffset = inputOffset + convSize(INPUT_PLANES, numChannels);
+        this.policyOffset = blocksOffset + 2 * numBlocks * convSize(numChannels, numChannels);
+        this.valueOffset = policyOffset + numChannels + 1;
+        this.hiddenOffset = valueOffset + numChannels + 1;
+        this.outputOffset = hiddenOffset + valueHidden * NUM_CELLS + valueHidden;
+        int numWeights = outputOffset + valueHidden + 1;
+        if (weights.length != numWeights) {
+            throw new IllegalArgumentException("Network needs " + numWeights + " weights, got " + weights.length);
+        }
+        this.weights = weights;
+    }
+
+    /**
+     * Returns a network with small random weights, e.g. as the start of a training or for tests.
+     */
+    public static PolicyValueNet createRandom(int numChannels, int numBlocks, int valueHidden, long seed) {
+        int numWeights = convSize(INPUT_PLANES, numChannels) + 2 * numBlocks * convSize(numChannels, numChannels)
+                + 2 * (numChannels + 1) + valueHidden * (NUM_CELLS + 2) + 1;
+        SplittableRandom random = new SplittableRandom(seed);
+        float[] weights = new float[numWeights];
+        for (int i = 0; i < numWeights; i++) {
+            weights[i] = (float) (random.nextGaussian() * 0.1);
+        }
+        return new PolicyValueNet(numChannels, numBlocks, valueHidden, weights);
+    }
+
+    public static PolicyValueNet load(Path path) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getInt() != BOARD_SIZE) {
+                throw new IllegalArgumentException("Not a network of version " + VERSION
+                        + " for board size " + BOARD_SIZE + ": " + path);
+            }
+            int numChannels = buffer.getInt();
+            int numBlocks = buffer.getInt();
+            int valueHidden = buffer.getInt();
+            FloatBuffer floats = buffer.asFloatBuffer();
+            float[] weights = new float[floats.remaining()];
+            floats.get(weights);
+            return new PolicyValueNet(numChannels, numBlocks, valueHidden, weights);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read network " + path, e);
+        }
+    }
+
+    public void save(Path path) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + weights.length * Float.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(BOARD_SIZE)
+                .putInt(numChannels).putInt(numBlocks).putInt(valueHidden);
+        buffer.asFloatBuffer().put(weights);
+        try {
+            Files.write(path, buffer.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write network " + path, e);
+        }
+    }
+
+    /**
+     * Writes the INPUT_PLANES padded planes of the position, seen by the player to move, to input at offset.
+     */
+    public static void encode(BitBoard position, float[] input, int offset) {
+        Arrays.fill(input, offset, offset + INPUT_SIZE, 0f);
+        Player player = position.getTurn();
+        int own = offset;
+        int opponent = offset + AREA;
+        int board = offset + 2 * AREA;
+        for (int i = 1; i <= BOARD_SIZE; i++) {
+            input[own + i] = 1f;
+            input[own + (SIDE - 1) * SIDE + i] = 1f;
+            input[opponent + i * SIDE] = 1f;
+            input[opponent + i * SIDE + SIDE - 1] = 1f;
+        }
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            int padded = toPadded(toCanonical(cell, player));
+            input[board + padded] = 1f;
+            Player stone = position.getPlayer(cell);
+            if (stone != null) {
+                input[(stone == player ? own : opponent) + padded] = 1f;
+            }
+        }
+    }
+
+    /**
+     * Returns the cell as seen by player: PLAYER_2 sees the board transposed. The mapping is its own inverse.
+     */
+    public static int toCanonical(int cell, Player player) {
+        return player == PLAYER_1 ? cell : BitBoard.index(BitBoard.col(cell), BitBoard.row(cell));
+    }
+
+    /**
+     * Evaluates the batchSize positions of the input of the workspace, see {@link Workspace#setInput}. Writes
+     * the policy logits by canonical cell to logits at position * NUM_CELLS and the values in [-1, 1] for the
+     * player to move to values.
+     */
+    public void evaluate(Workspace workspace, int batchSize, float[] logits, float[] values) {
+        if (batchSize > workspace.maxBatchSize) {
+            throw new IllegalArgumentException("Batch of " + batchSize + " exceeds the workspace");
+        }
+        float[][] x = workspace.first;
+        float[][] t = workspace.second;
+        float[][] y = workspace.third;
+        int length = batchSize * AREA;
+        convolve(workspace.input, x, inputOffset, batchSize, workspace.shifted);
+        relu(x, length);
+        int block = blocksOffset;
+        for (int i = 0; i < numBlocks; i++) {
+            convolve(x, t, block, batchSize, workspace.shifted);
+            relu(t, length);
+            block += convSize(numChannels, numChannels);
+            convolve(t, y, block, batchSize, workspace.shifted);
+            block += convSize(numChannels, numChannels);
+            for (int channel = 0; channel < numChannels; channel++) {
+                addRelu(y[channel], x[channel], length); // the padding stays 0
+            }
+            float[][] swap = x;
+            x = y;
+            y = swap;
+        }
+        for (int position = 0; position < batchSize; position++) {
+            evaluatePolicy(x, position, logits, position * NUM_CELLS);
+            values[position] = evaluateValue(x, position, workspace.hidden);
+        }
+    }
+
+    private void evaluatePolicy(float[][] x, int position, float[] logits, int offset) {
+        float bias = weights[policyOffset + numChannels];
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            int padded = position * AREA + toPadded(cell);
+            float logit = bias;
+            for (int channel = 0; channel < numChannels; channel++) {
+                logit += weights[policyOffset + channel] * x[channel][padded];
+            }
+            logits[offset + cell] = logit;
+        }
+    }
+
+    private float evaluateValue(float[][] x, int position, float[] hidden) {
+        float convBias = weights[valueOffset + numChannels];
+        for (int unit = 0; unit < valueHidden; unit++) {
+            hidden[unit] = weights[hiddenOffset + valueHidden * NUM_CELLS + unit];
+        }
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            int padded = position * AREA + toPadded(cell);
+            float feature = convBias;
+            for (int channel = 0; channel < numChannels; channel++) {
+                feature += weights[valueOffset + channel] * x[channel][padded];
+            }
+            if (feature <= 0f) {
+                continue;
+            }
+            for (int unit = 0; unit < valueHidden; unit++) {
+                hidden[unit] += weights[hiddenOffset + unit * NUM_CELLS + cell] * feature;
+            }
+        }
+        float output = weights[outputOffset + valueHidden];
+        for (int unit = 0; unit < valueHidden; unit++) {
+            output += weights[outputOffset + unit] * Math.max(0f, hidden[unit]);
+        }
+        return (float) Math.tanh(output);
+    }
+
+    /**
+     * Hex convolution of the padded planes in to the numChannels padded planes out. A plane holds one channel
+     * of all positions of the batch, the range from the first cell of the first position to the last cell of
+     * the last one is computed at once:
+     * - every input plane is copied once per tap, shifted by the offset of the neighbour of the tap
+     * - every output plane adds the seven weighted copies cell by cell
+     * All arrays of the inner loop are read and written at the same index, so the JIT can vectorize it,
+     * an offset between them would be a possible dependency. Long ranges are what a batch gains.
+     * The padding within the range is cleared afterward.
+     */
+    private void convolve(float[][] in, float[][] out, int offset, int batchSize, float[][] shifted) {
+        int inChannels = in.length;
+        int biases = offset + numChannels * inChannels * TAPS;
+        int end = (batchSize - 1) * AREA + FIRST + LENGTH;
+        for (int outChannel = 0; outChannel < numChannels; outChannel++) {
+            Arrays.fill(out[outChannel], FIRST, end, weights[biases + outChannel]);
+        }
+        for (int inChannel = 0; inChannel < inChannels; inChannel++) {
+            for (int tap = 0; tap < TAPS; tap++) {
+                System.arraycopy(in[inChannel], FIRST + TAP_OFFSETS[tap], shifted[tap], FIRST, end - FIRST);
+            }
+            for (int outChannel = 0; outChannel < numChannels; outChannel++) {
+                addTaps(out[outChannel], shifted, weights, offset + (outChannel * inChannels + inChannel) * TAPS,
+                        FIRST, end);
+            }
+        }
+        for (int outChannel = 0; outChannel < numChannels; outChannel++) {
+            for (int position = 0; position < batchSize; position++) {
+                for (int padding : PADDING) {
+                    out[outChannel][position * AREA + padding] = 0f;
+                }
+            }
+        }
+    }
+
+    private static void addTaps(float[] out, float[][] shifted, float[] weights, int kernel, int from, int to) {
+        float[] s0 = shifted[0], s1 = shifted[1], s2 = shifted[2], s3 = shifted[3];
+        float[] s4 = shifted[4], s5 = shifted[5], s6 = shifted[6];
+        float w0 = weights[kernel], w1 = weights[kernel + 1], w2 = weights[kernel + 2], w3 = weights[kernel + 3];
+        float w4 = weights[kernel + 4], w5 = weights[kernel + 5], w6 = weights[kernel + 6];
+        for (int i = from; i < to; i++) {
+            out[i] += w0 * s0[i] + w1 * s1[i] + w2 * s2[i] + w3 * s3[i] + w4 * s4[i] + w5 * s5[i] + w6 * s6[i];
+        }
+    }
+
+    private static void addRelu(float[] y, float[] x, int length) {
+        for (int i = 0; i < length; i++) {
+            y[i] = Math.max(0f, y[i] + x[i]);
+        }
+    }
+
+    private void relu(float[][] planes, int length) {
+        for (int channel = 0; channel < numChannels; channel++) {
+            float[] plane = planes[channel];
+            for (int i = 0; i < length; i++) {
+                plane[i] = Math.max(0f, plane[i]);
+            }
+        }
+    }
+
+    private static int toPadded(int cell) {
+        return (BitBoard.row(cell) + 1) * SIDE + BitBoard.col(cell) + 1;
+    }
+
+    private static int[] createPadding() {
+        return IntStream.range(0, AREA)
+                .filter(i -> i / SIDE == 0 || i / SIDE == SIDE - 1 || i % SIDE == 0 || i % SIDE == SIDE - 1)
+                .toArray();
+    }
+
+    private static int convSize(int inChannels, int outChannels) {
+        return outChannels * inChannels * TAPS + outChannels;
+    }
+
+    /**
+     * Buffers of one thread for batches of up to maxBatchSize positions, every plane holds one channel of all
+     * positions. The positions of a batch are set with {@link #setInput} before {@link #evaluate}.
+     */
+    public static class Workspace {
+        @Getter
+        private final int maxBatchSize;
+        private final float[][] input;
+        private final float[][] first;
+        private final float[][] second;
+        private final float[][] third;
+        private final float[][] shifted;
+        private final float[] hidden;
+
+        public Workspace(PolicyValueNet net, int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            this.input = new float[INPUT_PLANES][maxBatchSize * AREA];
+            this.first = new float[net.numChannels][maxBatchSize * AREA];
+            this.second = new float[net.numChannels][maxBatchSize * AREA];
+            this.third = new float[net.numChannels][maxBatchSize * AREA];
+            this.shifted = new float[TAPS][maxBatchSize * AREA];
+            this.hidden = new float[net.valueHidden];
+        }
+
+        /**
+         * Copies the planes written by {@link #encode} to the position of the batch.
+         */
+        public void setInput(int position, float[] planes) {
+            for (int plane = 0; plane < INPUT_PLANES; plane++) {
+                System.arraycopy(planes, plane * AREA, input[plane], position * AREA, AREA);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package de.siramac.hexomato.agent.alphazero;
+
+import de.siramac.hexomato.agent.mcts.BudgetTracker;
+import de.siramac.hexomato.agent.mcts.TreeArena;
+import de.siramac.hexomato.agent.mcts.Util;
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Player;
+import lombok.Getter;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.NONE;
+import static de.siramac.hexomato.agent.mcts.TreeArena.ROOT;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+
+/**
+ * One search thread of {@link AlphaZeroAgent}. Every simulation descends the shared tree by PUCT to a leaf,
+ * evaluates the leaf with the network and backs up the value, there are no playouts:
+ * - selection: argmax of Q + c_puct * P * sqrt(N) / (1 + n), Q is the mean value of the action, P its prior
+ * and n its visits, N the visits of the node. An action without visits gets the value of its node.
+ * - expansion: the evaluated leaf gets a node for every empty cell, the prior is the softmax of the logits
+ * of the empty cells
+ * - backup: the value of the network, or the result of a won position, is added to the path
+ * The tree is shared like the TREE parallelization of {@link de.siramac.hexomato.agent.mcts.MctsAgent}: the
+ * actions on the path get a virtual loss until the backup. A leaf expanded by two threads at once gets its
+ * children once, another thread may see them before their priors are set.
+ */
+class PuctWorker {
+
+    private final BitBoard simulationEnv = new BitBoard();
+    private final BatchEvaluator evaluator;
+    private final BatchEvaluator.Request request;
+    private final int[] path = new int[NUM_CELLS + 1];
+    private int pathLength;
+    private final float[] priors = new float[NUM_CELLS];
+    @Getter
+    private int numSimulations;
+    @Getter
+    private int maxDepth; // of the leaves of the last search
+    @Getter
+    private long sumDepth;
+    @Getter
+    private long allocatedBytes; // by the last search
+
+    PuctWorker(BatchEvaluator evaluator) {
+        this.evaluator = evaluator;
+        this.request = evaluator.createRequest();
+    }
+
+    /**
+     * Searches the tree of rootState until the budget is exhausted or the tree is full. The worker must have
+     * joined the evaluator, it leaves when the search ends.
+     */
+    void search(TreeArena tree, BitBoard rootState, AlphaZeroConfig config, BudgetTracker budget) {
+        numSimulations = 0;
+        maxDepth = 0;
+        sumDepth = 0;
+        long startBytes = Util.getAllocatedBytes();
+        float virtualLoss = (float) config.getVirtualLoss();
+        Player rootPlayer = rootState.getTurn();
+        try {
+            while (!budget.isExhausted()) {
+                select(tree, rootState, config.getExplorationConstant(), virtualLoss);
+                maxDepth = Math.max(maxDepth, pathLength - 1);
+                sumDepth += pathLength - 1;
+
+                float value; // of rootPlayer
+                Player winner = simulationEnv.getWinner();
+                if (winner != null) {
+                    value = winner == rootPlayer ? 1f : 0f;
+                } else {
+                    PolicyValueNet.encode(simulationEnv, request.getInput(), 0);
+                    evaluator.evaluate(request);
+                    if (!expand(tree, path[pathLength - 1])) {
+                        budget.stop(); // the tree is full
+                    }
+                    float leafValue = (request.getValue() + 1f) / 2f;
+                    value = simulationEnv.getTurn() == rootPlayer ? leafValue : 1f - leafValue;
+                }
+
+                backup(tree, rootPlayer, value, virtualLoss);
+                numSimulations++;
+                budget.countPlayout();
+            }
+        } finally {
+            evaluator.leave(request);
+            allocatedBytes = Util.getAllocatedBytes() - startBytes;
+        }
+    }
+
+    private void select(TreeArena tree, BitBoard rootState, double explorationConstant, float virtualLoss) {
+        simulationEnv.copyFrom(rootState);
+        pathLength = 0;
+        path[pathLength++] = ROOT;
+        int node = ROOT;
+        while (simulationEnv.getWinner() == null) {
+            int child = selectChild(tree, node, explorationConstant);
+            if (child == NONE) {
+                break; // not expanded yet
+            }
+            tree.addVisits(child, virtualLoss);
+            simulationEnv.makeMove(tree.getCell(child), simulationEnv.getTurn());
+            path[pathLength++] = child;
+            node = child;
+        }
+    }
+
+    /**
+     * Returns the child of node with the highest PUCT value, NONE if node has no children.
+     */
+    private static int selectChild(TreeArena tree, int node, double explorationConstant) {
+        float nodeVisits = tree.getVisits(node);
+        double exploration = explorationConstant * Math.sqrt(Math.max(1f, nodeVisits));
+        // the values of node are those of the opponent, the root has none
+        double firstPlayValue = node != ROOT && nodeVisits > 0f ? 1.0 - tree.getValues(node) / nodeVisits : 0.5;
+        int bestChild = NONE;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = tree.getFirstChild(node); child != NONE; child = tree.getNextSibling(child)) {
+            float visits = tree.getVisits(child);
+            double meanValue = visits > 0f ? tree.getValues(child) / visits : firstPlayValue;
+            double value = meanValue + exploration * tree.getPrior(child) / (1.0 + visits);
+            if (value > bestValue) {
+                bestValue = value;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Adds the children of the leaf with the policy of the request as priors. Returns false if the tree is full.
+     */
+    private boolean expand(TreeArena tree, int leaf) {
+        Player player = simulationEnv.getTurn();
+        float[] logits = request.getLogits();
+        float maxLogit = Float.NEGATIVE_INFINITY;
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            if (simulationEnv.isEmpty(cell)) {
+                maxLogit = Math.max(maxLogit, logits[PolicyValueNet.toCanonical(cell, player)]);
+            }
+        }
+        float sum = 0f;
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            if (simulationEnv.isEmpty(cell)) {
+                priors[cell] = (float) Math.exp(logits[PolicyValueNet.toCanonical(cell, player)] - maxLogit);
+                sum += priors[cell];
+            }
+        }
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            if (simulationEnv.isEmpty(cell)) {
+                int child = tree.addChild(leaf, cell);
+                if (child == NONE) {
+                    return false;
+                }
+                tree.setPrior(child, priors[cell] / sum);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds value, the win probability of rootPlayer, to the path and takes back the virtual loss. The values
+     * of a node are those of the player who played into it.
+     */
+    private void backup(TreeArena tree, Player rootPlayer, float value, float virtualLoss) {
+        tree.addVisits(ROOT, 1f);
+        Player activePlayer = rootPlayer;
+        for (int i = 1; i < pathLength; i++) {
+            int child = path[i];
+            tree.addValues(child, activePlayer == rootPlayer ? value : 1f - value);
+            tree.addVisits(child, 1f - virtualLoss);
+            activePlayer = activePlayer == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package de.siramac.hexomato.agent.evaluation;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Player;
+
+/**
+ * Static evaluation of a position without playing it out, e.g. to end a playout early.
+ */
+public interface PositionEvaluator {
+
+    /**
+     * Returns the estimated probability in [0, 1] that playerToMove wins the position. The turn of the position
+     * is not used, playouts place stones without switching it.
+     */
+    double getWinProbability(BitBoard position, Player playerToMove);
+}
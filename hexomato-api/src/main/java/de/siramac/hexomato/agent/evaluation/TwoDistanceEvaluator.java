@@ -0,0 +1,182 @@
+package de.siramac.hexomato.agent.evaluation;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.DisjointSet;
+import de.siramac.hexomato.domain.Player;
+
+import java.util.Arrays;
+
+import static de.siramac.hexomato.domain.BitBoard.NEIGHBOURS;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.BitBoard.NUM_WORDS;
+import static de.siramac.hexomato.domain.Game.BOARD_SIZE;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+
+/**
+ * Two-distance evaluation: the two-distance of an empty cell to an edge is 1 next to the edge, otherwise one
+ * more than the second smallest two-distance of its neighbours. The smallest one doesn't count, the opponent
+ * blocks it. The potential of a player is the smallest sum of the two-distances to both edges of the player
+ * over all empty cells, the number of stones the player still needs against a blocking opponent.
+ * <p>
+ * The cells are adjacent along {@link BitBoard#NEIGHBOURS}, a group of own stones joins all its empty
+ * neighbours, a group connected to an edge joins them to the edge. Stones of the opponent are walls.
+ * The two-distances are computed level by level with bit operations:
+ * - extendedNeighbours: the empty cells adjacent to every empty cell, directly or through an own group
+ * - groupLiberties: the empty neighbours of every own group, indexed by its representative
+ * <p>
+ * Not thread safe, every worker owns an evaluator. Nothing is allocated per evaluation.
+ */
+public class TwoDistanceEvaluator implements PositionEvaluator {
+
+    /**
+     * Potential of a player who can't connect anymore.
+     */
+    public static final int UNREACHABLE = 2 * NUM_CELLS;
+
+    // win probability of the player to move:
+    // 1 / (1 + exp(-SHARPNESS * (potential of the opponent - own potential + TEMPO)))
+    private static final double SHARPNESS = 0.2; // fitted to the playout results of random positions
+    private static final double TEMPO = 1.0; // the player to move gets about one stone closer
+    private static final int NUM_GROUPS = NUM_CELLS + 4; // cells and the edge nodes of DisjointSet
+    private static final long[] NEIGHBOUR_MASKS = createNeighbourMasks();
+
+    private final long[] extendedNeighbours = new long[NUM_CELLS * NUM_WORDS];
+    private final long[] groupLiberties = new long[NUM_GROUPS * NUM_WORDS];
+    private final long[] empty = new long[NUM_WORDS];
+    private final long[] reached = new long[NUM_WORDS];
+    private final long[] level = new long[NUM_WORDS];
+    private final int[] firstDistances = new int[NUM_CELLS];
+    private final int[] secondDistances = new int[NUM_CELLS];
+
+    @Override
+    public double getWinProbability(BitBoard position, Player playerToMove) {
+        Player opponent = playerToMove == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+        if (position.isConnected(playerToMove)) {
+            return 1.0;
+        } else if (position.isConnected(opponent)) {
+            return 0.0;
+        }
+        double advantage = getPotential(position, opponent) - getPotential(position, playerToMove) + TEMPO;
+        return 1.0 / (1.0 + Math.exp(-SHARPNESS * advantage));
+    }
+
+    /**
+     * Returns the potential of player: 0 if connected, UNREACHABLE if the opponent has cut all paths.
+     */
+    public int getPotential(BitBoard position, Player player) {
+        if (position.isConnected(player)) {
+            return 0;
+        }
+        buildNeighbours(position, player);
+        int first = player == PLAYER_1 ? DisjointSet.TOP : DisjointSet.LEFT;
+        int second = player == PLAYER_1 ? DisjointSet.BOTTOM : DisjointSet.RIGHT;
+        computeDistances(position, player, first, firstDistances);
+        computeDistances(position, player, second, secondDistances);
+        int potential = UNREACHABLE;
+        for (int word = 0; word < NUM_WORDS; word++) {
+            for (long cells = empty[word]; cells != 0; cells &= cells - 1) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(cells);
+                potential = Math.min(potential, firstDistances[cell] + secondDistances[cell]);
+            }
+        }
+        return potential;
+    }
+
+    private void buildNeighbours(BitBoard position, Player player) {
+        for (int word = 0; word < NUM_WORDS; word++) {
+            empty[word] = ~(position.getStones(PLAYER_1, word) | position.getStones(PLAYER_2, word));
+        }
+        empty[NUM_WORDS - 1] &= -1L >>> (NUM_WORDS * Long.SIZE - NUM_CELLS);
+        Arrays.fill(groupLiberties, 0L);
+        for (int word = 0; word < NUM_WORDS; word++) {
+            for (long stones = position.getStones(player, word); stones != 0; stones &= stones - 1) {
+                int stone = (word << 6) + Long.numberOfTrailingZeros(stones);
+                int group = position.getGroup(stone);
+                for (int i = 0; i < NUM_WORDS; i++) {
+                    groupLiberties[group * NUM_WORDS + i] |= NEIGHBOUR_MASKS[stone * NUM_WORDS + i] & empty[i];
+                }
+            }
+        }
+        for (int word = 0; word < NUM_WORDS; word++) {
+            for (long cells = empty[word]; cells != 0; cells &= cells - 1) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(cells);
+                int offset = cell * NUM_WORDS;
+                for (int i = 0; i < NUM_WORDS; i++) {
+                    extendedNeighbours[offset + i] = NEIGHBOUR_MASKS[offset + i] & empty[i];
+                }
+                for (int neighbour : NEIGHBOURS[cell]) {
+                    if (position.getPlayer(neighbour) == player) {
+                        int group = position.getGroup(neighbour) * NUM_WORDS;
+                        for (int i = 0; i < NUM_WORDS; i++) {
+                            extendedNeighbours[offset + i] |= groupLiberties[group + i];
+                        }
+                    }
+                }
+                extendedNeighbours[offset + (cell >>> 6)] &= ~(1L << cell);
+            }
+        }
+    }
+
+    /**
+     * Level 1 are the empty cells on the line of the edge and the liberties of the groups connected to it.
+     * Level d + 1 are the cells with at least two neighbours on the levels up to d.
+     */
+    private void computeDistances(BitBoard position, Player player, int edge, int[] distances) {
+        boolean rows = player == PLAYER_1;
+        int line = edge == DisjointSet.TOP || edge == DisjointSet.LEFT ? 0 : BOARD_SIZE - 1;
+        int edgeGroup = position.getGroup(edge);
+        for (int word = 0; word < NUM_WORDS; word++) {
+            reached[word] = groupLiberties[edgeGroup * NUM_WORDS + word];
+        }
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            int cell = rows ? BitBoard.index(line, i) : BitBoard.index(i, line);
+            reached[cell >>> 6] |= (1L << cell) & empty[cell >>> 6];
+        }
+        Arrays.fill(distances, UNREACHABLE);
+        setDistances(reached, 1, distances);
+
+        for (int distance = 2; ; distance++) {
+            boolean found = false;
+            for (int word = 0; word < NUM_WORDS; word++) {
+                level[word] = 0L;
+                for (long cells = empty[word] & ~reached[word]; cells != 0; cells &= cells - 1) {
+                    int cell = (word << 6) + Long.numberOfTrailingZeros(cells);
+                    int numReached = 0;
+                    for (int i = 0; i < NUM_WORDS; i++) {
+                        numReached += Long.bitCount(extendedNeighbours[cell * NUM_WORDS + i] & reached[i]);
+                    }
+                    if (numReached >= 2) {
+                        level[word] |= 1L << cell;
+                        found = true;
+                    }
+                }
+            }
+            if (!found) {
+                return;
+            }
+            setDistances(level, distance, distances);
+            for (int word = 0; word < NUM_WORDS; word++) {
+                reached[word] |= level[word];
+            }
+        }
+    }
+
+    private static void setDistances(long[] cells, int distance, int[] distances) {
+        for (int word = 0; word < NUM_WORDS; word++) {
+            for (long bits = cells[word]; bits != 0; bits &= bits - 1) {
+                distances[(word << 6) + Long.numberOfTrailingZeros(bits)] = distance;
+            }
+        }
+    }
+
+    private static long[] createNeighbourMasks() {
+        long[] masks = new long[NUM_CELLS * NUM_WORDS];
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            for (int neighbour : NEIGHBOURS[cell]) {
+                masks[cell * NUM_WORDS + (neighbour >>> 6)] |= 1L << neighbour;
+            }
+        }
+        return masks;
+    }
+}
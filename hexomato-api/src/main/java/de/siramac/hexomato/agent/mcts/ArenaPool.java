@@ -0,0 +1,54 @@
+package de.siramac.hexomato.agent.mcts;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Keeps the tree arenas of closed agents for the next agents, so new games do not allocate
+ * their trees again. The kept arenas take at most maxIdleBytes, see {@link TreeArena#getBytes()},
+ * further released arenas are left to the garbage collector.
+ */
+public class ArenaPool {
+
+    private final long maxIdleBytes;
+    private final Deque<TreeArena> idle = new ArrayDeque<>();
+    private long idleBytes;
+
+    public ArenaPool(long maxIdleBytes) {
+        this.maxIdleBytes = maxIdleBytes;
+    }
+
+    /**
+     * Returns an idle arena of the given shape or a new one.
+     */
+    public synchronized TreeArena acquire(int capacity, boolean rave, boolean inferiorMoves) {
+        Iterator<TreeArena> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            TreeArena arena = iterator.next();
+            if (arena.getCapacity() == Math.max(1, capacity) && arena.isRave() == rave
+                    && arena.hasInferiorMoves() == inferiorMoves) {
+                iterator.remove();
+                idleBytes -= arena.getBytes();
+                return arena;
+            }
+        }
+        return new TreeArena(capacity, rave, inferiorMoves);
+    }
+
+    public synchronized void release(TreeArena arena) {
+        if (idleBytes + arena.getBytes() <= maxIdleBytes) {
+            arena.clear();
+            idle.push(arena);
+            idleBytes += arena.getBytes();
+        }
+    }
+
+    public synchronized int getNumIdle() {
+        return idle.size();
+    }
+
+    public synchronized long getIdleBytes() {
+        return idleBytes;
+    }
+}
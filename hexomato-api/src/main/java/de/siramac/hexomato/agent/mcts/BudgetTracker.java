@@ -0,0 +1,134 @@
+package de.siramac.hexomato.agent.mcts;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.ROOT;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+
+/**
+ * Tracks the budget of one running search for all its workers. Time and playouts are checked after
+ * every playout, the node count and the early stop only every CHECK_INTERVAL playouts because they
+ * read the trees.
+ * <p>
+ * Early stop: the remaining playouts are estimated from the limits, for a time limit from the playout
+ * rate so far. If the lead of the most visited root action over the second one is greater, the
+ * search cannot change its move anymore.
+ * <p>
+ * {@link de.siramac.hexomato.agent.alphazero.AlphaZeroAgent} counts its simulations as playouts.
+ */
+public class BudgetTracker {
+
+    static final int CHECK_INTERVAL = 256;
+
+    private final SearchBudget budget;
+    private final TreeArena[] trees;
+    private final long startTime;
+    private final long deadline;
+    private final AtomicLong numPlayouts = new AtomicLong();
+    private final double[] visitsByCell = new double[NUM_CELLS];
+    private volatile boolean exhausted;
+    private volatile boolean stoppedEarly;
+    private volatile boolean solved;
+
+    public BudgetTracker(SearchBudget budget, TreeArena[] trees) {
+        if (budget.isUnlimited()) {
+            throw new IllegalArgumentException("Search budget without limit");
+        }
+        this.budget = budget;
+        this.trees = trees;
+        this.startTime = System.currentTimeMillis();
+        this.deadline = budget.getTimeMillis() > 0 ? startTime + budget.getTimeMillis() : Long.MAX_VALUE;
+    }
+
+    public boolean isExhausted() {
+        return exhausted || System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * Counts a finished playout and checks the limits.
+     */
+    public void countPlayout() {
+        long playouts = numPlayouts.incrementAndGet();
+        if (budget.getPlayouts() > 0 && playouts >= budget.getPlayouts()) {
+            exhausted = true;
+        } else if (playouts % CHECK_INTERVAL == 0) {
+            check(playouts);
+        }
+    }
+
+    /**
+     * Ends the search from outside, e.g. to stop pondering.
+     */
+    public void stop() {
+        exhausted = true;
+    }
+
+    /**
+     * Ends the search because the result of the root position is proven, more playouts can't change the move.
+     */
+    public void solve() {
+        solved = true;
+        exhausted = true;
+    }
+
+    public boolean isStoppedEarly() {
+        return stoppedEarly;
+    }
+
+    public boolean isSolved() {
+        return solved;
+    }
+
+    private synchronized void check(long playouts) {
+        long remaining = Long.MAX_VALUE;
+        if (budget.getPlayouts() > 0) {
+            remaining = budget.getPlayouts() - playouts;
+        }
+        if (budget.getNodes() > 0) {
+            int nodes = Arrays.stream(trees).mapToInt(TreeArena::getSize).sum();
+            if (nodes >= budget.getNodes()) {
+                exhausted = true;
+                return;
+            }
+            remaining = Math.min(remaining, budget.getNodes() - nodes); // at most one node per playout
+        }
+        if (budget.getTimeMillis() > 0) {
+            long now = System.currentTimeMillis();
+            double playoutsPerMilli = (double) playouts / Math.max(1, now - startTime);
+            remaining = Math.min(remaining, (long) Math.ceil(playoutsPerMilli * (deadline - now)));
+        }
+        if (budget.isEarlyStop() && getLead() > remaining) {
+            stoppedEarly = true;
+            exhausted = true;
+        }
+    }
+
+    /**
+     * Visits of the most visited root action minus the visits of the second one, over all trees.
+     */
+    private double getLead() {
+        Arrays.fill(visitsByCell, 0.0);
+        for (TreeArena tree : trees) {
+            Lock lock = tree.getLock().readLock(); // the tree must not be pruned while its root is read
+            lock.lock();
+            try {
+                tree.addChildVisits(ROOT, visitsByCell);
+            } finally {
+                lock.unlock();
+            }
+        }
+        double best = 0.0;
+        double second = 0.0;
+        for (double visits : visitsByCell) {
+            if (visits > best) {
+                second = best;
+                best = visits;
+            } else if (visits > second) {
+                second = visits;
+            }
+        }
+        return best - second;
+    }
+}
@@ -1,68 +1,437 @@
 package de.siramac.hexomato.agent.mcts;
 
 import de.siramac.hexomato.agent.Agent;
+import de.siramac.hexomato.agent.PonderScheduler;
+import de.siramac.hexomato.agent.SearchStats;
+import de.siramac.hexomato.domain.BitBoard;
 import de.siramac.hexomato.domain.Game;
 import de.siramac.hexomato.domain.Node;
 import de.siramac.hexomato.domain.Player;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.NONE;
+import static de.siramac.hexomato.agent.mcts.TreeArena.PROVEN_LOSS;
+import static de.siramac.hexomato.agent.mcts.TreeArena.PROVEN_WIN;
+import static de.siramac.hexomato.agent.mcts.TreeArena.ROOT;
 import static de.siramac.hexomato.agent.mcts.Util.getArgMax;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
 
 @Slf4j
-@AllArgsConstructor
 public class MctsAgent implements Agent {
 
-    private Player player;
-    private Game simulationEnv;
-    final long SIMULATION_TIME = 2_000; // in milliseconds
+    // shared by all agents, the searches of several games queue up on the same cores
+    private static final ForkJoinPool SEARCH_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    // pondering runs in slices on the thread of the PonderScheduler, at most this many playouts or milliseconds
+    private static final SearchBudget PONDER_SLICE = SearchBudget.builder()
+            .timeMillis(10)
+            .playouts(256)
+            .earlyStop(false)
+            .build();
+
+    private final Player player;
+    private final MctsConfig config;
+    private final BitBoard rootState;
+    private final SearchWorker[] workers;
+    private final ArenaPool arenaPool; // null if the agent allocates its own trees
+    private TreeArena[] trees; // one shared tree or one per worker, null while the agent is closed
+    private final SearchContext[] contexts; // one per tree, each with its own transposition table
+    private BitBoard treeRootState; // position of the roots of the trees, null if the trees can't be reused
+    private PonderScheduler.Task ponderTask; // null if the agent is not pondering
+    private int numPonderSlices; // of the current pondering, only used by the ponder thread
+    private volatile long numPlayouts; // of all searches, pondering excluded
+    private volatile long numPonderedPlayouts; // of the current or last pondering
+    private volatile boolean searching;
+
+    public MctsAgent(Player player) {
+        this(player, MctsConfig.DEFAULT);
+    }
+
+    public MctsAgent(Player player, MctsConfig config) {
+        this(player, config, null);
+    }
+
+    /**
+     * @param arenaPool the trees are taken from the pool and returned by {@link #close()}
+     */
+    public MctsAgent(Player player, MctsConfig config, ArenaPool arenaPool) {
+        this.player = player;
+        this.config = config;
+        this.arenaPool = arenaPool;
+        this.rootState = new BitBoard();
+        SplittableRandom random = new SplittableRandom();
+        this.workers = new SearchWorker[Math.max(1, config.getNumThreads())];
+        boolean sharedTree = config.getParallelization() == MctsConfig.Parallelization.TREE;
+        this.contexts = new SearchContext[sharedTree ? 1 : workers.length];
+        for (int i = 0; i < contexts.length; i++) {
+            TranspositionTable transpositionTable = config.getTranspositionTableSize() > 0
+                    ? new TranspositionTable(config.getTranspositionTableSize())
+                    : null;
+            contexts[i] = new SearchContext(transpositionTable, config.getRaveEquivalence(),
+                    config.getNodeBudgetPolicy(), config.getTieBreak(), config.getFirstPlayUrgency(),
+                    config.getPriorWeight(), config.getWideningMinChildren(), config.getWideningExponent());
+        }
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new SearchWorker(random.split(), config);
+        }
+    }
 
+    /**
+     * The search runs on a {@link BitBoard}, the board of the game is only converted here.
+     */
     @Override
     public Node getMove(Game game) {
-        simulationEnv.reset(game.getBoard(), player, game.getWinner()); // update simulation environment to current env
-        UCTNode rootNode = monteCarloTreeSearch();
-        double[] policy = rootNode.calculatePolicy();
-        int argmax = getArgMax(policy);
-        return game.getValidActions()[argmax];
-    }
-
-    private UCTNode monteCarloTreeSearch() {
-        long startTime = System.currentTimeMillis();
-        UCTNode rootNode = new UCTNode(
-                simulationEnv.getBoard(),
-                simulationEnv.getTurn(),
-                simulationEnv.getValidActions(),
-                simulationEnv.getWinner(),
-                null,
-                null
-        );
-        int numSimulations = 0;
-        while (System.currentTimeMillis() - startTime < SIMULATION_TIME) {
-
-            // Selection
-            SelectionResult selectionResult = rootNode.select();
-            UCTNode selectedNode = selectionResult.node();
-            Integer nextAction = selectionResult.action();
-
-            // Expansion: expand selectedNode if node is not a terminal state
-            UCTNode leafNode;
-            if (nextAction != null) {
-                leafNode = selectedNode.expand(simulationEnv, nextAction);
+        return getMove(game, 1.0, Long.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized Node getMove(Game game, double budgetFactor, long deadlineMillis) {
+        stopPondering();
+        rootState.reset(game.getBoard(), player, game.getWinner()); // update simulation environment to current env
+        int cell = searchRootState(budgetFactor, deadlineMillis);
+        return game.getBoard()[BitBoard.row(cell)][BitBoard.col(cell)];
+    }
+
+    /**
+     * Returns the cell to play in the position, e.g. for positions which are not part of a game.
+     */
+    public synchronized int getAction(BitBoard position) {
+        stopPondering();
+        rootState.copyFrom(position);
+        return searchRootState(1.0, Long.MAX_VALUE);
+    }
+
+    private int searchRootState(double budgetFactor, long deadlineMillis) {
+        OpeningBook openingBook = config.getOpeningBook();
+        int bookCell = openingBook != null ? openingBook.lookup(rootState) : NONE;
+        if (bookCell != NONE) {
+            log.info("Playing cell {} from the opening book", bookCell);
+            treeRootState = null; // the trees don't cover the position
+            return bookCell;
+        }
+
+        searching = true;
+        try {
+            acquireTrees();
+            prepareTrees();
+            SearchBudget budget = config.getBudget();
+            if (budgetFactor < 1.0) {
+                budget = budget.scale(budgetFactor);
+            }
+            if (deadlineMillis != Long.MAX_VALUE) {
+                budget = budget.limitTime(deadlineMillis - System.currentTimeMillis());
+            }
+            long startNanos = System.nanoTime();
+            monteCarloTreeSearch(budget);
+            int cell = selectMove();
+            if (config.getSearchListener() != null) {
+                config.getSearchListener().accept(getSearchStats(cell, System.nanoTime() - startNanos));
+            }
+            treeRootState = config.isReuseTree() ? rootState.copy() : null;
+            return cell;
+        } finally {
+            searching = false;
+        }
+    }
+
+    /**
+     * Returns a proven win, otherwise the most visited action of all trees. Proven losses are only played
+     * if every action loses, then the most visited one, which resisted the longest.
+     */
+    private int selectMove() {
+        double[] visitsByCell = getRootVisits();
+        boolean[] lost = new boolean[NUM_CELLS];
+        for (TreeArena tree : trees) {
+            for (int child = tree.getFirstChild(ROOT); child != NONE; child = tree.getNextSibling(child)) {
+                if (tree.getProof(child) == PROVEN_WIN) {
+                    return tree.getCell(child);
+                }
+                lost[tree.getCell(child)] |= tree.getProof(child) == PROVEN_LOSS;
+            }
+        }
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            if (!rootState.isEmpty(cell)) {
+                visitsByCell[cell] = Double.NEGATIVE_INFINITY;
+            } else if (lost[cell]) {
+                visitsByCell[cell] = -1.0 / (1.0 + visitsByCell[cell]); // below the actions without visits
+            }
+        }
+        return getArgMax(visitsByCell);
+    }
+
+    /**
+     * Returns the statistics of the last search, which chose cell. The root actions of all trees are added up.
+     */
+    private SearchStats getSearchStats(int cell, long wallNanos) {
+        double[] visitsByCell = getRootVisits();
+        double bestVisits = 0.0;
+        double bestValues = 0.0;
+        for (TreeArena tree : trees) {
+            int child = tree.findChild(ROOT, cell);
+            if (child != NONE) {
+                bestVisits += tree.getVisits(child);
+                bestValues += tree.getValues(child); // of the player of the agent
+            }
+        }
+        long simulations = Arrays.stream(workers).mapToLong(SearchWorker::getNumSimulations).sum();
+        long sumDepth = Arrays.stream(workers).mapToLong(SearchWorker::getSumDepth).sum();
+        return SearchStats.builder()
+                .playouts(simulations)
+                .wallNanos(wallNanos)
+                .treeNodes(Arrays.stream(trees).mapToInt(TreeArena::getSize).sum())
+                .maxDepth(Arrays.stream(workers).mapToInt(SearchWorker::getMaxDepth).max().orElse(0))
+                .averageDepth(simulations > 0 ? (double) sumDepth / simulations : 0.0)
+                .rootEntropy(Util.getEntropy(visitsByCell))
+                .bestMoveWinRate(bestVisits > 0.0 ? bestValues / bestVisits : 0.5)
+                .allocatedBytes(Arrays.stream(workers).mapToLong(SearchWorker::getAllocatedBytes).sum())
+                .build();
+    }
+
+    @Override
+    public boolean isSearching() {
+        return searching;
+    }
+
+    @Override
+    public long getNumPlayouts() {
+        return numPlayouts;
+    }
+
+    /**
+     * Returns the trees of the agent, one per worker with ROOT parallelization, null while the agent is closed.
+     * For diagnostics, the trees must not be changed.
+     */
+    public synchronized TreeArena[] getTrees() {
+        return trees != null ? trees.clone() : null;
+    }
+
+    /**
+     * Returns the visits of the root actions by cell, added up over all trees: the statistics the move is
+     * selected by.
+     */
+    public synchronized double[] getRootVisits() {
+        double[] visitsByCell = new double[NUM_CELLS];
+        if (trees != null) {
+            for (TreeArena tree : trees) {
+                tree.addChildVisits(ROOT, visitsByCell);
+            }
+        }
+        return visitsByCell;
+    }
+
+    public long getNumPonderedPlayouts() {
+        return numPonderedPlayouts;
+    }
+
+    /**
+     * Searches the position of the game while the opponent thinks, in the background until
+     * {@link #stopPondering()}, the next {@link #getMove(Game)} or the ponder time is over. The tree
+     * below the own move is kept, so the next search starts with the subtree of the opponent's move.
+     * The search runs in slices on the thread of the {@link PonderScheduler}, the workers and their trees
+     * take turns, and it pauses while any agent searches a move.
+     */
+    @Override
+    public synchronized void ponder(Game game) {
+        stopPondering();
+        if (!config.isPonder() || !config.isReuseTree() || game.getWinner() != null || game.getTurn() == player) {
+            return;
+        }
+        rootState.reset(game.getBoard(), game.getTurn(), null);
+        acquireTrees();
+        prepareTrees();
+        treeRootState = rootState.copy();
+
+        long deadline = System.currentTimeMillis() + config.getPonderTimeMillis();
+        BitBoard ponderRootState = rootState.copy(); // the slices only read it
+        TreeArena[] ponderTrees = trees;
+        numPonderSlices = 0;
+        numPonderedPlayouts = 0;
+        ponderTask = PonderScheduler.INSTANCE.submit(() -> ponderSlice(ponderTrees, ponderRootState, deadline));
+    }
+
+    /**
+     * Runs one worker on its tree for PONDER_SLICE, returns false once the ponder time is over or the root is
+     * proven.
+     */
+    private boolean ponderSlice(TreeArena[] ponderTrees, BitBoard ponderRootState, long deadline) {
+        int i = numPonderSlices++ % workers.length;
+        SearchWorker worker = workers[i];
+        int treeIndex = ponderTrees.length == 1 ? 0 : i;
+        TreeArena tree = ponderTrees[treeIndex];
+        worker.search(tree, ponderRootState, contexts[treeIndex], new BudgetTracker(PONDER_SLICE, new TreeArena[]{tree}), 0f);
+        numPonderedPlayouts += worker.getNumSimulations();
+        return worker.getNumSimulations() > 0 && System.currentTimeMillis() < deadline;
+    }
+
+    @Override
+    public synchronized void stopPondering() {
+        if (ponderTask == null) {
+            return;
+        }
+        ponderTask.cancel();
+        ponderTask = null;
+        log.info("Pondering stopped after {} simulations", numPonderedPlayouts);
+    }
+
+    @Override
+    public synchronized void close() {
+        stopPondering();
+        if (trees != null && arenaPool != null) {
+            for (TreeArena tree : trees) {
+                arenaPool.release(tree);
+            }
+        }
+        trees = null;
+        treeRootState = null;
+    }
+
+    private void acquireTrees() {
+        if (trees != null) {
+            return;
+        }
+        boolean sharedTree = config.getParallelization() == MctsConfig.Parallelization.TREE;
+        trees = new TreeArena[sharedTree ? 1 : workers.length];
+        int capacity = config.getNodeBudget() / trees.length;
+        boolean rave = contexts[0].isRave();
+        for (int i = 0; i < trees.length; i++) {
+            trees[i] = arenaPool != null
+                    ? arenaPool.acquire(capacity, rave, config.isPruneInferiorCells())
+                    : new TreeArena(capacity, rave, config.isPruneInferiorCells());
+        }
+    }
+
+    /**
+     * If possible the subtrees of the last search are reused: the node reached by the moves played since then
+     * becomes the root, the statistics collected below it are kept. Otherwise the trees are cleared.
+     */
+    private void prepareTrees() {
+        int[] moves = findMovesSinceTreeRoot();
+        float reusedVisits = 0;
+        for (TreeArena tree : trees) {
+            int newRoot = moves != null ? ROOT : NONE;
+            for (int i = 0; moves != null && i < moves.length && newRoot != NONE; i++) {
+                newRoot = tree.findChild(newRoot, moves[i]);
+            }
+            if (newRoot != NONE) {
+                tree.reroot(newRoot);
+                reusedVisits += tree.getVisits(ROOT);
+            } else {
+                tree.clear();
+            }
+        }
+        treeRootState = null;
+        if (reusedVisits > 0) {
+            log.info("Reusing search tree with {} visits", (long) reusedVisits);
+        }
+    }
+
+    /**
+     * Returns the cells played from the position of the tree roots to the current position, null if the
+     * current position is not reached from there by at most two moves, one of each player.
+     */
+    private int[] findMovesSinceTreeRoot() {
+        if (treeRootState == null) {
+            return null;
+        }
+        int numMoves = rootState.getNumStones() - treeRootState.getNumStones();
+        if (numMoves < 0 || numMoves > 2) {
+            return null;
+        }
+        int[] moves = new int[numMoves];
+        BitBoard expected = treeRootState.copy();
+        for (int i = 0; i < numMoves; i++) {
+            Player turn = expected.getTurn();
+            moves[i] = NONE;
+            for (int cell = 0; cell < NUM_CELLS && moves[i] == NONE; cell++) {
+                if (expected.isEmpty(cell) && rootState.getPlayer(cell) == turn) {
+                    moves[i] = cell;
+                }
+            }
+            if (moves[i] == NONE) {
+                return null;
+            }
+            expected.makeMove(moves[i], turn);
+        }
+        return expected.hasSameStones(rootState) && expected.getTurn() == rootState.getTurn() ? moves : null;
+    }
+
+    /**
+     * Every worker searches until the common budget is exhausted:
+     * - ROOT: each worker searches its own tree, afterward the statistics of the roots are added up
+     * - TREE: all workers search the one shared tree
+     */
+    private void monteCarloTreeSearch(SearchBudget searchBudget) {
+        BudgetTracker budget = new BudgetTracker(searchBudget, trees);
+        List<Callable<Void>> tasks = createSearchTasks(budget);
+        PonderScheduler.INSTANCE.searchStarted();
+        try {
+            if (tasks.size() == 1) {
+                try {
+                    tasks.get(0).call();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Search failed", e);
+                }
             } else {
-                leafNode = selectedNode;
+                awaitAll(SEARCH_POOL.invokeAll(tasks));
             }
+        } finally {
+            PonderScheduler.INSTANCE.searchFinished();
+        }
 
-            // Simulation
-            Player winner = leafNode.getWinner();
-            if (winner == null) {
-                winner = leafNode.simulate(simulationEnv);
+        int[] simulationsPerThread = Arrays.stream(workers).mapToInt(SearchWorker::getNumSimulations).toArray();
+        numPlayouts += Arrays.stream(simulationsPerThread).sum();
+        int treeSize = Arrays.stream(trees).mapToInt(TreeArena::getSize).sum();
+        int numPrunedNodes = Arrays.stream(workers).mapToInt(SearchWorker::getNumPrunedNodes).sum();
+        log.info("Number of simulations: {}, per thread: {}, tree size: {}/{} nodes, pruned: {} nodes",
+                Arrays.stream(simulationsPerThread).sum(), simulationsPerThread, treeSize, config.getNodeBudget(),
+                numPrunedNodes);
+        if (budget.isSolved()) {
+            log.info("Search solved the position");
+        } else if (budget.isStoppedEarly()) {
+            log.info("Search stopped early, the most visited action cannot be overtaken anymore");
+        }
+        for (SearchContext context : contexts) {
+            if (context.getTranspositionTable() != null) {
+                log.info("Transposition table: {}", context.getTranspositionTable().getAndResetCounters());
             }
+        }
+    }
 
-            // Backup
-            leafNode.backup(winner);
-            numSimulations++;
+    private List<Callable<Void>> createSearchTasks(BudgetTracker budget) {
+        boolean sharedTree = trees.length == 1;
+        float virtualLoss = sharedTree && workers.length > 1 ? (float) config.getVirtualLoss() : 0f;
+        BitBoard searchRootState = rootState.copy(); // the workers only read it
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < workers.length; i++) {
+            SearchWorker worker = workers[i];
+            TreeArena tree = trees[sharedTree ? 0 : i];
+            SearchContext context = contexts[sharedTree ? 0 : i];
+            tasks.add(() -> {
+                worker.search(tree, searchRootState, context, budget, virtualLoss);
+                return null;
+            });
+        }
+        return tasks;
+    }
+
+    private static void awaitAll(List<Future<Void>> futures) {
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed", e.getCause());
         }
-        log.info("Number of simulations: {}", numSimulations);
-        return rootNode;
     }
 }
@@ -0,0 +1,174 @@
+package de.siramac.hexomato.agent.mcts;
+
+import de.siramac.hexomato.agent.SearchStats;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.function.Consumer;
+
+/**
+ * Settings of one {@link MctsAgent}, create them with MctsConfig.builder().
+ */
+@Getter
+@Builder(toBuilder = true)
+public class MctsConfig {
+
+    public static final MctsConfig DEFAULT = MctsConfig.builder().build();
+
+    /**
+     * Limits of every search of the agent.
+     */
+    @Builder.Default
+    private final SearchBudget budget = SearchBudget.DEFAULT;
+
+    /**
+     * Number of search threads.
+     */
+    @Builder.Default
+    private final int numThreads = Runtime.getRuntime().availableProcessors();
+
+    @Builder.Default
+    private final Parallelization parallelization = Parallelization.ROOT;
+
+    /**
+     * Visits added to an action while a thread searches below it, only used for TREE parallelization.
+     */
+    @Builder.Default
+    private final double virtualLoss = 1.0;
+
+    /**
+     * Keep the tree between moves: the next search starts from the subtree reached by the own move
+     * and the reply of the opponent.
+     */
+    @Builder.Default
+    private final boolean reuseTree = true;
+
+    /**
+     * Maximal number of nodes of a search, shared by the trees of ROOT parallelization. The trees are
+     * allocated once with this size, what happens when it is reached is set by the nodeBudgetPolicy.
+     */
+    @Builder.Default
+    private final int nodeBudget = 1 << 20;
+
+    @Builder.Default
+    private final NodeBudgetPolicy nodeBudgetPolicy = NodeBudgetPolicy.PRUNE;
+
+    /**
+     * Search in the background while the opponent thinks, see {@link MctsAgent#ponder}.
+     * Requires reuseTree.
+     */
+    @Builder.Default
+    private final boolean ponder = false;
+
+    /**
+     * Maximal duration of pondering in milliseconds, in case the opponent never moves.
+     */
+    @Builder.Default
+    private final long ponderTimeMillis = 60_000;
+
+    /**
+     * Number of slots of the transposition table of each tree, with TREE parallelization shared by all workers.
+     * 0 disables the tables, the default until its strength has been measured.
+     */
+    @Builder.Default
+    private final int transpositionTableSize = 0;
+
+    /**
+     * RAVE: number of visits at which the AMAF value and the real value of an action weigh the same.
+     * 0 disables RAVE, the default until the arena shows that it pays for itself, e.g. with 1000.
+     */
+    @Builder.Default
+    private final double raveEquivalence = 0;
+
+    /**
+     * Which of several actions with the same upper confidence bound is selected.
+     */
+    @Builder.Default
+    private final TieBreak tieBreak = TieBreak.LAST;
+
+    /**
+     * First-play urgency: the value of an action without visits. Infinity tries every action once before
+     * any action is visited twice, a value around the win rate lets good actions be revisited earlier.
+     * With progressive widening only the actions admitted so far are tried.
+     */
+    @Builder.Default
+    private final double firstPlayUrgency = Double.POSITIVE_INFINITY;
+
+    /**
+     * Progressive bias: weight of the prior of {@link MovePriors} in the upper confidence bound of an action,
+     * the bias fades with the visits of the action. 0 disables it, the default until its strength has been
+     * measured.
+     */
+    @Builder.Default
+    private final double priorWeight = 0.0;
+
+    /**
+     * Progressive widening: a node with N visits selects only among its wideningMinChildren + N^wideningExponent
+     * actions with the best prior, weaker actions are added as N grows. 0 selects among all actions at once,
+     * the default until its strength has been measured.
+     */
+    @Builder.Default
+    private final int wideningMinChildren = 0;
+
+    @Builder.Default
+    private final double wideningExponent = 0.5;
+
+    /**
+     * Inferior cell analysis, see {@link de.siramac.hexomato.pattern.PatternTable#getInferiorMoves}: dead,
+     * captured and dominated cells are not searched, dead and captured cells are filled before every playout.
+     * The trees keep the inferior moves of every node.
+     */
+    @Builder.Default
+    private final boolean pruneInferiorCells = true;
+
+    /**
+     * Number of random moves after which a playout is stopped and scored by the two-distance evaluator of
+     * {@link de.siramac.hexomato.agent.evaluation.TwoDistanceEvaluator}. 0 plays every playout until one player
+     * has won.
+     */
+    @Builder.Default
+    private final int playoutCutoff = 0;
+
+    /**
+     * Moves played without a search in the positions of the book, null if there is no book.
+     */
+    @Builder.Default
+    private final OpeningBook openingBook = null;
+
+    /**
+     * Receives the statistics of every search, e.g. to publish them as metrics, null if there is none.
+     */
+    @Builder.Default
+    private final Consumer<SearchStats> searchListener = null;
+
+    public enum TieBreak {
+        FIRST,
+        LAST,
+        /**
+         * Uniformly among the tied actions.
+         */
+        RANDOM
+    }
+
+    public enum NodeBudgetPolicy {
+        /**
+         * A full tree is not expanded further, the simulations start at its leaves.
+         */
+        STOP_EXPANDING,
+        /**
+         * A full tree recycles its least visited subtrees, it is pruned to half of its budget.
+         */
+        PRUNE
+    }
+
+    public enum Parallelization {
+        /**
+         * Every thread searches its own tree, the statistics of the root nodes are merged at the end.
+         */
+        ROOT,
+        /**
+         * All threads search one shared tree, virtual loss spreads them over different paths.
+         */
+        TREE
+    }
+}
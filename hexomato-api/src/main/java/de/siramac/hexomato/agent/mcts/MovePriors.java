@@ -0,0 +1,90 @@
+package de.siramac.hexomato.agent.mcts;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.pattern.PatternTable;
+
+import static de.siramac.hexomato.domain.BitBoard.NO_CELL;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.BitBoard.NUM_WORDS;
+import static de.siramac.hexomato.domain.Game.BOARD_SIZE;
+
+/**
+ * Cheap heuristic value of the actions of a position in [0, 1], the prior of progressive bias and progressive
+ * widening. The weights of the features of a cell are added:
+ * - SAVE: answers the last move with a save pattern of {@link PatternTable}, restoring a bridge, an edge
+ * template or a ladder
+ * - BRIDGE: forms a bridge with an own stone
+ * - NEAR: distance 1 or 2 to the last move
+ * - LINE: distance to the nearest edge, a stone on the first two lines is rarely worth it
+ * Not thread safe, every worker owns one. {@link #compute(BitBoard)} prepares the position before
+ * {@link #get(int)} is called.
+ */
+class MovePriors {
+
+    private static final float SAVE = 0.4f;
+    private static final float BRIDGE = 0.2f;
+    private static final float NEAR = 0.2f;
+    private static final float LINE = 0.2f;
+    private static final float[] LINE_PRIORS = createLinePriors();
+
+    private final int[] responses = new int[PatternTable.MAX_RESPONSES];
+    private final long[] saveCells = new long[NUM_WORDS];
+    private BitBoard position;
+
+    void compute(BitBoard position) {
+        this.position = position;
+        for (int word = 0; word < NUM_WORDS; word++) {
+            saveCells[word] = 0L;
+        }
+        if (position.getLastCell() != NO_CELL) {
+            int numResponses = PatternTable.getResponses(position, position.getLastCell(), position.getTurn(),
+                    responses);
+            for (int i = 0; i < numResponses; i++) {
+                saveCells[responses[i] >>> 6] |= 1L << responses[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the prior of the empty cell for the player to move.
+     */
+    float get(int cell) {
+        float prior = LINE_PRIORS[cell];
+        if ((saveCells[cell >>> 6] & (1L << cell)) != 0) {
+            prior += SAVE;
+        }
+        if (PatternTable.isBridge(position, cell, position.getTurn())) {
+            prior += BRIDGE;
+        }
+        int lastCell = position.getLastCell();
+        if (lastCell != NO_CELL) {
+            int distance = getDistance(cell, lastCell);
+            if (distance == 1) {
+                prior += NEAR;
+            } else if (distance == 2) {
+                prior += NEAR / 2;
+            }
+        }
+        return prior;
+    }
+
+    /**
+     * Number of steps between the cells, the neighbours differ by (-1, 0), (-1, 1), (0, ±1), (1, -1) or (1, 0).
+     */
+    private static int getDistance(int cell, int other) {
+        int rows = BitBoard.row(cell) - BitBoard.row(other);
+        int cols = BitBoard.col(cell) - BitBoard.col(other);
+        return Math.max(Math.max(Math.abs(rows), Math.abs(cols)), Math.abs(rows + cols));
+    }
+
+    private static float[] createLinePriors() {
+        float[] priors = new float[NUM_CELLS];
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            int row = BitBoard.row(cell);
+            int col = BitBoard.col(cell);
+            int line = Math.min(Math.min(row, BOARD_SIZE - 1 - row), Math.min(col, BOARD_SIZE - 1 - col));
+            priors[cell] = LINE * Math.min(line, 2) / 2;
+        }
+        return priors;
+    }
+}
@@ -0,0 +1,118 @@
+package de.siramac.hexomato.agent.mcts;
+
+import de.siramac.hexomato.domain.BitBoard;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.NONE;
+import static de.siramac.hexomato.domain.Game.BOARD_SIZE;
+
+/**
+ * Precomputed moves of the first positions of a game, written by {@link OpeningBookGenerator}. A position and
+ * its 180° rotation share one entry: the key is the smaller of both hashes and the cell is stored for the
+ * position with that hash.
+ * <p>
+ * File format, big endian:
+ * - header: MAGIC, VERSION, BOARD_SIZE, number of entries (4 ints)
+ * - entries sorted by key: key (long), cell (short)
+ * The file is memory-mapped read only, a lookup is a binary search on the mapped file, so all agents share
+ * the pages and a book costs no heap.
+ */
+@Slf4j
+public class OpeningBook {
+
+    static final int MAGIC = 0x4845_5842; // HEXB
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int ENTRY_SIZE = Long.BYTES + Short.BYTES;
+
+    private final ByteBuffer entries;
+    private final int numEntries;
+
+    private OpeningBook(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != BOARD_SIZE) {
+            throw new IllegalArgumentException("Not an opening book of version " + VERSION
+                    + " for board size " + BOARD_SIZE);
+        }
+        this.numEntries = buffer.getInt(12);
+        if (buffer.capacity() != HEADER_SIZE + (long) numEntries * ENTRY_SIZE) {
+            throw new IllegalArgumentException("Opening book is truncated");
+        }
+        this.entries = buffer.slice(HEADER_SIZE, numEntries * ENTRY_SIZE);
+    }
+
+    public static OpeningBook open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            OpeningBook book = new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            log.info("Opening book {} with {} positions", path, book.size());
+            return book;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read opening book " + path, e);
+        }
+    }
+
+    /**
+     * Writes the moves by key to the file, see {@link #getKey(BitBoard)} for the keys.
+     */
+    public static void write(Map<Long, Integer> moves, Path path) {
+        SortedMap<Long, Integer> sorted = new TreeMap<>(moves);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + sorted.size() * ENTRY_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(BOARD_SIZE).putInt(sorted.size());
+        sorted.forEach((key, cell) -> buffer.putLong(key).putShort(cell.shortValue()));
+        try {
+            Files.write(path, buffer.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write opening book " + path, e);
+        }
+    }
+
+    /**
+     * Key of the position: the smaller of the hashes of the position and of its rotation.
+     */
+    public static long getKey(BitBoard position) {
+        return Math.min(position.getHash(), position.getRotatedHash());
+    }
+
+    /**
+     * Converts a cell of the position into the cell stored with the key of the position, and back.
+     */
+    public static int toKeyCell(BitBoard position, int cell) {
+        return position.getHash() <= position.getRotatedHash() ? cell : BitBoard.rotate(cell);
+    }
+
+    /**
+     * Returns the move of the book for the position, NONE if the position is not in the book.
+     */
+    public int lookup(BitBoard position) {
+        long key = getKey(position);
+        int low = 0;
+        int high = numEntries - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = entries.getLong(middle * ENTRY_SIZE);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                int cell = toKeyCell(position, entries.getShort(middle * ENTRY_SIZE + Long.BYTES));
+                return position.isEmpty(cell) ? cell : NONE; // a hash collision
+            }
+        }
+        return NONE;
+    }
+
+    public int size() {
+        return numEntries;
+    }
+}
@@ -0,0 +1,92 @@
+package de.siramac.hexomato.agent.mcts;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Player;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes an {@link OpeningBook} offline: a long search for every position with at most maxStones stones in
+ * which the book player is to move, reached by the book moves of that player and any moves of the opponent.
+ * Both players get a book. Positions which are equal up to the 180° rotation are searched once.
+ * <p>
+ * Run it with the packaged application, arguments: file [maxStones, default 2] [milliseconds per position,
+ * default 10000]:
+ * java -cp hexomato-api-exec.jar -Dloader.main=de.siramac.hexomato.agent.mcts.OpeningBookGenerator
+ * org.springframework.boot.loader.launch.PropertiesLauncher opening-book.bin 2 10000
+ */
+@Slf4j
+public class OpeningBookGenerator {
+
+    private final MctsAgent agent;
+    private final int maxStones;
+    private final Map<Long, Integer> moves = new HashMap<>(); // cells by key, see OpeningBook
+    private final Set<Long> expanded = new HashSet<>();
+
+    public OpeningBookGenerator(MctsConfig config, int maxStones) {
+        this.agent = new MctsAgent(Player.PLAYER_1, config.toBuilder().openingBook(null).build());
+        this.maxStones = maxStones;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Arguments: file [maxStones] [millisecondsPerPosition]");
+            System.exit(1);
+        }
+        int maxStones = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        long timeMillis = args.length > 2 ? Long.parseLong(args[2]) : 10_000;
+        MctsConfig config = MctsConfig.builder()
+                .budget(SearchBudget.builder().timeMillis(timeMillis).earlyStop(false).build())
+                .reuseTree(false)
+                .build();
+        Map<Long, Integer> moves = new OpeningBookGenerator(config, maxStones).generate();
+        OpeningBook.write(moves, Path.of(args[0]));
+        log.info("Wrote {} positions to {}", moves.size(), args[0]);
+    }
+
+    /**
+     * Returns the cells of the book by key, for {@link OpeningBook#write(Map, Path)}.
+     */
+    public Map<Long, Integer> generate() {
+        for (Player bookPlayer : Player.values()) {
+            expanded.clear();
+            expand(new BitBoard(), bookPlayer);
+        }
+        return moves;
+    }
+
+    private void expand(BitBoard position, Player bookPlayer) {
+        if (position.getWinner() != null || position.getNumStones() > maxStones
+                || !expanded.add(OpeningBook.getKey(position))) {
+            return;
+        }
+        if (position.getTurn() == bookPlayer) {
+            Integer keyCell = moves.get(OpeningBook.getKey(position));
+            int cell = keyCell != null ? OpeningBook.toKeyCell(position, keyCell) : search(position);
+            expandMove(position, cell, bookPlayer);
+        } else {
+            for (int cell : position.getValidActions()) {
+                expandMove(position, cell, bookPlayer);
+            }
+        }
+    }
+
+    private void expandMove(BitBoard position, int cell, Player bookPlayer) {
+        BitBoard next = position.copy();
+        next.makeMove(cell, position.getTurn());
+        expand(next, bookPlayer);
+    }
+
+    private int search(BitBoard position) {
+        int cell = agent.getAction(position);
+        moves.put(OpeningBook.getKey(position), OpeningBook.toKeyCell(position, cell));
+        log.info("Book position {}: {} stones, {} to move, cell {}", moves.size(), position.getNumStones(),
+                position.getTurn(), cell);
+        return cell;
+    }
+}
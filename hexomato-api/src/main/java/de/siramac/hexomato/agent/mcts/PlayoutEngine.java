@@ -0,0 +1,126 @@
+package de.siramac.hexomato.agent.mcts;
+
+import de.siramac.hexomato.agent.evaluation.PositionEvaluator;
+import de.siramac.hexomato.agent.evaluation.TwoDistanceEvaluator;
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Player;
+import de.siramac.hexomato.pattern.PatternTable;
+
+import java.util.SplittableRandom;
+
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.BitBoard.NUM_WORDS;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+
+/**
+ * Runs playouts without producing garbage. All buffers are allocated once, so an engine must
+ * not be shared between threads: every search thread owns one engine.
+ * <p>
+ * - cells: the empty cells, shuffled with Fisher-Yates while they are played
+ * - the stones of the board are the mask of played cells, counter moves are skipped with it
+ * - replies: the possible counter moves of one pattern check
+ * - player1Cells, player2Cells: the cells filled by the inferior cell analysis
+ * - evaluator: scores the position when a playout is cut off, null for full playouts
+ */
+public class PlayoutEngine {
+
+    private final int[] cells = new int[NUM_CELLS];
+    private final int[] replies = new int[PatternTable.MAX_RESPONSES];
+    private final long[] player1Cells = new long[NUM_WORDS];
+    private final long[] player2Cells = new long[NUM_WORDS];
+    private final SplittableRandom random;
+    private final boolean fillInferiorCells;
+    private final int cutoff;
+    private final PositionEvaluator evaluator;
+
+    public PlayoutEngine() {
+        this(new SplittableRandom(), false, 0);
+    }
+
+    /**
+     * @param fillInferiorCells fill the dead and captured cells of {@link PatternTable#fillIn} before the
+     *                          random moves
+     * @param cutoff            number of random moves after which the playout is scored by a
+     *                          {@link TwoDistanceEvaluator}, 0 plays until one player has won
+     */
+    public PlayoutEngine(SplittableRandom random, boolean fillInferiorCells, int cutoff) {
+        this.random = random;
+        this.fillInferiorCells = fillInferiorCells;
+        this.cutoff = cutoff;
+        this.evaluator = cutoff > 0 ? new TwoDistanceEvaluator() : null;
+    }
+
+    /**
+     * Game simulation until one player wins. To efficiently simulate the game:
+     * - fill the inferior cells, they can't change the winner
+     * - get all valid actions
+     * - answer an intrusion into a bridge, an edge template or a laddered stone with the save pattern
+     * of {@link PatternTable} first
+     * - play an available action if no pattern matches
+     * - alternate between players until one player connects both edges
+     * The connections are maintained by the union-find of the board, so the playout ends with
+     * the first winning stone instead of filling the whole board. With a cutoff the playout ends after
+     * cutoff random moves and the winner is drawn with the win probability of the evaluator.
+     */
+    public Player simulate(BitBoard simulationEnv, Player activePlayer) {
+        if (fillInferiorCells && PatternTable.fillIn(simulationEnv, player1Cells, player2Cells) > 0) {
+            fill(simulationEnv, player1Cells, PLAYER_1);
+            fill(simulationEnv, player2Cells, PLAYER_2);
+            if (simulationEnv.isConnected(PLAYER_1)) {
+                return PLAYER_1;
+            } else if (simulationEnv.isConnected(PLAYER_2)) {
+                return PLAYER_2;
+            }
+        }
+        int numCells = simulationEnv.getValidActions(cells);
+
+        Player player = activePlayer;
+        int numMoves = 0;
+        for (int i = 0; i < numCells; i++) {
+            if (numMoves == cutoff && evaluator != null) {
+                Player opponent = player == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+                return random.nextDouble() < evaluator.getWinProbability(simulationEnv, player) ? player : opponent;
+            }
+
+            // Fisher-Yates: draw the next cell from the not yet drawn ones
+            int j = i + random.nextInt(numCells - i);
+            int cell = cells[j];
+            cells[j] = cells[i];
+            cells[i] = cell;
+
+            // skip cells which were already played as a counter move
+            if (!simulationEnv.isEmpty(cell)) continue;
+
+            simulationEnv.setPlayer(cell, player);
+            numMoves++;
+            if (simulationEnv.isConnected(player)) {
+                return player;
+            }
+
+            // check if current cell intrudes into a pattern of the opponent, then play the counter move
+            Player opponent = player == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+            int numReplies = PatternTable.getResponses(simulationEnv, cell, opponent, replies);
+            if (numReplies > 0) {
+                int opponentCounterCell = replies[random.nextInt(numReplies)];
+                simulationEnv.setPlayer(opponentCounterCell, opponent);
+                if (simulationEnv.isConnected(opponent)) {
+                    return opponent;
+                }
+            } else {
+                player = opponent;
+            }
+        }
+
+        // a full board always has a winner, this is only reached for a position without actions
+        return simulationEnv.isConnected(PLAYER_1) ? PLAYER_1 : PLAYER_2;
+    }
+
+    private static void fill(BitBoard simulationEnv, long[] cells, Player player) {
+        for (int word = 0; word < NUM_WORDS; word++) {
+            for (long bits = cells[word]; bits != 0; bits &= bits - 1) {
+                simulationEnv.setPlayer((word << 6) + Long.numberOfTrailingZeros(bits), player);
+            }
+        }
+    }
+}
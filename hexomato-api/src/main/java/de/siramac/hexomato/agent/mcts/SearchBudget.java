@@ -0,0 +1,63 @@
+package de.siramac.hexomato.agent.mcts;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Limits of one search, create them with SearchBudget.builder(). The search stops at the first limit
+ * reached, 0 means unlimited. At least one limit must be set.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class SearchBudget {
+
+    public static final SearchBudget DEFAULT = SearchBudget.builder().build();
+
+    /**
+     * Wall time of the search in milliseconds.
+     */
+    @Builder.Default
+    private final long timeMillis = 2_000;
+
+    /**
+     * Number of playouts, of all threads together.
+     */
+    @Builder.Default
+    private final long playouts = 0;
+
+    /**
+     * Number of nodes of the search trees, reused nodes included.
+     */
+    @Builder.Default
+    private final int nodes = 0;
+
+    /**
+     * Stop as soon as the most visited action can no longer be overtaken by the second one within the
+     * remaining budget.
+     */
+    @Builder.Default
+    private final boolean earlyStop = true;
+
+    public boolean isUnlimited() {
+        return timeMillis <= 0 && playouts <= 0 && nodes <= 0;
+    }
+
+    /**
+     * Returns the budget with the time and the playouts multiplied by factor, e.g. to shorten the searches
+     * while many moves are waiting. Limits stay unlimited and a set limit stays at least 1.
+     */
+    public SearchBudget scale(double factor) {
+        return toBuilder()
+                .timeMillis(timeMillis > 0 ? Math.max(1, (long) (timeMillis * factor)) : 0)
+                .playouts(playouts > 0 ? Math.max(1, (long) (playouts * factor)) : 0)
+                .build();
+    }
+
+    /**
+     * Returns the budget with a time limit of at most maxTimeMillis, at least 1.
+     */
+    public SearchBudget limitTime(long maxTimeMillis) {
+        long limit = Math.max(1, maxTimeMillis);
+        return toBuilder().timeMillis(timeMillis > 0 ? Math.min(timeMillis, limit) : limit).build();
+    }
+}
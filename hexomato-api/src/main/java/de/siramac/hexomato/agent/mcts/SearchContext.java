@@ -0,0 +1,57 @@
+package de.siramac.hexomato.agent.mcts;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Settings and tables shared by all nodes of one tree of an agent, with TREE parallelization by all workers.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchContext {
+
+    /**
+     * null if disabled
+     */
+    private final TranspositionTable transpositionTable;
+
+    /**
+     * Number of visits at which the RAVE value and the real value of an action weigh the same,
+     * 0 disables RAVE.
+     */
+    private final double raveEquivalence;
+
+    private final MctsConfig.NodeBudgetPolicy nodeBudgetPolicy;
+
+    private final MctsConfig.TieBreak tieBreak;
+
+    /**
+     * Value of an action without visits and without AMAF samples.
+     */
+    private final double firstPlayUrgency;
+
+    /**
+     * Weight of the prior in the upper confidence bound, 0 disables progressive bias.
+     */
+    private final double priorWeight;
+
+    /**
+     * Progressive widening: maximal number of children is wideningMinChildren + N^wideningExponent for a node
+     * with N visits, 0 disables it.
+     */
+    private final int wideningMinChildren;
+
+    private final double wideningExponent;
+
+    public boolean isRave() {
+        return raveEquivalence > 0.0;
+    }
+
+    public boolean isProgressiveWidening() {
+        return wideningMinChildren > 0;
+    }
+
+    public boolean usesPriors() {
+        return priorWeight > 0.0 || isProgressiveWidening();
+    }
+}
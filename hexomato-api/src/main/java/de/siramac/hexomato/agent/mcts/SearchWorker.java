@@ -0,0 +1,497 @@
+package de.siramac.hexomato.agent.mcts;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Player;
+import de.siramac.hexomato.pattern.PatternTable;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.Lock;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.NONE;
+import static de.siramac.hexomato.agent.mcts.TreeArena.PROVEN_LOSS;
+import static de.siramac.hexomato.agent.mcts.TreeArena.PROVEN_WIN;
+import static de.siramac.hexomato.agent.mcts.TreeArena.ROOT;
+import static de.siramac.hexomato.agent.mcts.TreeArena.UNKNOWN;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.BitBoard.NUM_WORDS;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+
+/**
+ * One search thread: owns its simulation environment and its playout engine with its own random
+ * number generator, so workers never share mutable state.
+ * <p>
+ * The tree does not store positions, every iteration replays the selected cells from the root position
+ * on the simulation environment. The selected path is kept in buffers for the backup:
+ * - path: the nodes from the root to the leaf
+ * - pathHashes: the Zobrist hashes of their positions, for the transposition table
+ * <p>
+ * MCTS-Solver: a won position proves the action into it, the proofs are passed up the path, and a proven
+ * node is not searched below anymore but backed up with its known result. Once the root is proven the
+ * search ends.
+ */
+class SearchWorker {
+
+    private static final double EXPLORATION_COEFFICIENT = Math.sqrt(2);
+
+    private final BitBoard simulationEnv;
+    private final PlayoutEngine playoutEngine;
+    private final SplittableRandom random;
+    private int numTies; // actions with the best value so far, for random tie-breaking
+    private final int[] path = new int[NUM_CELLS + 1];
+    private final long[] pathHashes = new long[NUM_CELLS + 1];
+    private int pathLength;
+    private final long[] childCells = new long[NUM_WORDS]; // cells of the children of the current node
+    private final long[] playedCells = new long[NUM_WORDS]; // stones at the current node of the backup
+    private final boolean pruneInferiorCells;
+    private final long[] player1Cells = new long[NUM_WORDS]; // working memory of the inferior cell analysis
+    private final long[] player2Cells = new long[NUM_WORDS];
+    private final long[] inferiorMoves = new long[NUM_WORDS]; // of the current node
+    private final MovePriors priors = new MovePriors();
+    private boolean priorsComputed; // for the node of the last selectAction
+    @Getter
+    private int numSimulations;
+    @Getter
+    private int numPrunedNodes;
+    @Getter
+    private int maxDepth; // of the leaves of the last search
+    @Getter
+    private long sumDepth;
+    @Getter
+    private long allocatedBytes; // by the last search
+
+    /**
+     * The playouts are set up by the config: with pruneInferiorCells the moves of
+     * {@link PatternTable#getInferiorMoves} are skipped in the tree and the dead and captured cells of
+     * {@link PatternTable#fillIn} are filled in the playouts, playoutCutoff ends them early.
+     */
+    SearchWorker(SplittableRandom random, MctsConfig config) {
+        this.simulationEnv = new BitBoard();
+        this.playoutEngine = new PlayoutEngine(random, config.isPruneInferiorCells(), config.getPlayoutCutoff());
+        this.random = random;
+        this.pruneInferiorCells = config.isPruneInferiorCells();
+    }
+
+    /**
+     * Searches the tree of rootState until the budget is exhausted or the root is proven. The tree may be
+     * shared with other workers, then virtualLoss must be greater than 0.
+     */
+    void search(TreeArena tree, BitBoard rootState, SearchContext context, BudgetTracker budget, float virtualLoss) {
+        numSimulations = 0;
+        numPrunedNodes = 0;
+        maxDepth = 0;
+        sumDepth = 0;
+        long startBytes = Util.getAllocatedBytes();
+        boolean prune = context.getNodeBudgetPolicy() == MctsConfig.NodeBudgetPolicy.PRUNE;
+        Lock searchLock = tree.getLock().readLock();
+        while (!budget.isExhausted()) {
+            if (tree.getProof(ROOT) != UNKNOWN) {
+                budget.solve();
+                break;
+            }
+            searchLock.lock();
+            try {
+                // Selection and expansion: the simulation environment holds the position of the leaf
+                select(tree, rootState, context, virtualLoss);
+                maxDepth = Math.max(maxDepth, pathLength - 1);
+                sumDepth += pathLength - 1;
+
+                // Simulation, unless the result of the leaf is known
+                int leaf = path[pathLength - 1];
+                Player winner = simulationEnv.getWinner();
+                if (winner != null) {
+                    tree.setProof(leaf, PROVEN_WIN); // the action into the leaf has won
+                    propagateProof(tree, rootState.getNumStones());
+                } else if (tree.getProof(leaf) != UNKNOWN) {
+                    winner = getProvenWinner(tree.getProof(leaf));
+                    propagateProof(tree, rootState.getNumStones());
+                } else {
+                    winner = playoutEngine.simulate(simulationEnv, simulationEnv.getTurn());
+                }
+
+                // Backup: the simulation environment holds the final position
+                backup(tree, rootState, context, winner, virtualLoss);
+            } finally {
+                searchLock.unlock();
+            }
+            numSimulations++;
+            budget.countPlayout();
+
+            if (prune && tree.isFull()) {
+                prune(tree);
+            }
+        }
+        allocatedBytes = Util.getAllocatedBytes() - startBytes;
+    }
+
+    /**
+     * Waits until no other worker is inside an iteration on the tree and prunes it to half of its capacity,
+     * unless another worker has pruned it in the meantime.
+     */
+    private void prune(TreeArena tree) {
+        Lock pruneLock = tree.getLock().writeLock();
+        pruneLock.lock();
+        try {
+            if (tree.isFull()) {
+                numPrunedNodes += tree.prune(tree.getCapacity() / 2);
+            }
+        } finally {
+            pruneLock.unlock();
+        }
+    }
+
+    /**
+     * Descends to the first action without a node and adds its node. Every chosen action gets a
+     * virtual loss: it counts as visited but not won until the backup, so other threads searching the
+     * same tree are pushed to different paths. The descent also ends at a won or proven position or if the
+     * tree is full.
+     */
+    private void select(TreeArena tree, BitBoard rootState, SearchContext context, float virtualLoss) {
+        simulationEnv.copyFrom(rootState);
+        pathLength = 0;
+        path[pathLength] = ROOT;
+        pathHashes[pathLength++] = simulationEnv.getHash();
+
+        int node = ROOT;
+        while (simulationEnv.getWinner() == null && simulationEnv.getNumActions() > 0
+                && tree.getProof(node) == UNKNOWN) {
+            int cell = selectAction(tree, node, context);
+            if (cell == NONE) {
+                tree.setProof(node, PROVEN_WIN); // every action loses, so the action into the node wins
+                break;
+            }
+            int child = tree.findChild(node, cell);
+            boolean expanded = child == NONE;
+            if (expanded) {
+                child = tree.addChild(node, cell);
+                if (child == NONE) {
+                    break; // the tree is full, simulate from the current node
+                }
+                if (context.usesPriors()) {
+                    if (!priorsComputed) {
+                        priors.compute(simulationEnv);
+                    }
+                    tree.setPrior(child, priors.get(cell));
+                }
+                if (context.getTranspositionTable() != null) {
+                    context.getTranspositionTable().lookup(simulationEnv.getHashAfterMove(cell, simulationEnv.getTurn()));
+                }
+            }
+            if (virtualLoss != 0f) {
+                tree.addVisits(child, virtualLoss);
+            }
+            simulationEnv.makeMove(cell, simulationEnv.getTurn());
+            path[pathLength] = child;
+            pathHashes[pathLength++] = simulationEnv.getHash();
+            if (expanded) {
+                break;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Returns the cell which the selection chooses in node of tree, position is the position of node.
+     * Used by the benchmarks, the search selects in {@link #select}.
+     */
+    int selectAction(TreeArena tree, int node, BitBoard position, SearchContext context) {
+        simulationEnv.copyFrom(position);
+        return selectAction(tree, node, context);
+    }
+
+    /**
+     * Returns the cell with the highest upper confidence bound among the children of node and the
+     * actions without a node yet, in one pass without allocations. The visits of node are the running
+     * visit count N of the parent, so sqrt(log N) is computed once per node. Proven losses are skipped,
+     * NONE is returned if all actions are proven losses. The inferior moves get no node, unless all empty
+     * cells are inferior.
+     * <p>
+     * Progressive widening: while the node has its maximal number of children, only the children are
+     * selected. Otherwise the action without a node with the best prior competes with them, so the actions
+     * are added in the order of their priors.
+     */
+    private int selectAction(TreeArena tree, int node, SearchContext context) {
+        TranspositionTable transpositionTable = context.getTranspositionTable();
+        MctsConfig.TieBreak tieBreak = context.getTieBreak();
+        Player activePlayer = simulationEnv.getTurn();
+        int amafTable = tree.getAmafTable(node);
+        double exploration = EXPLORATION_COEFFICIENT * Math.sqrt(Math.log(Math.max(1f, tree.getVisits(node))));
+
+        int bestCell = NONE;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        numTies = 0;
+        priorsComputed = false;
+        int numChildren = 0;
+        for (int word = 0; word < NUM_WORDS; word++) {
+            childCells[word] = 0L;
+        }
+        for (int child = tree.getFirstChild(node); child != NONE; child = tree.getNextSibling(child)) {
+            int cell = tree.getCell(child);
+            childCells[cell >>> 6] |= 1L << cell;
+            numChildren++;
+            if (tree.getProof(child) == PROVEN_LOSS) {
+                continue;
+            }
+            double value = calculateUpperConfidenceBoundForTrees(tree, child, cell, amafTable, exploration,
+                    activePlayer, transpositionTable, context);
+            if (isBetter(value, bestValue, tieBreak)) {
+                bestValue = value;
+                bestCell = cell;
+            }
+        }
+        boolean widening = context.isProgressiveWidening();
+        if (widening && bestCell != NONE && numChildren >= getMaxChildren(tree.getVisits(node), context)) {
+            return bestCell;
+        }
+
+        if (context.usesPriors()) {
+            priors.compute(simulationEnv);
+            priorsComputed = true;
+        }
+        boolean skipInferior = pruneInferiorCells && loadInferiorMoves(tree, node);
+        int widenedCell = NONE;
+        float widenedPrior = Float.NEGATIVE_INFINITY;
+        for (int word = 0; word < NUM_WORDS; word++) {
+            long untried = ~(simulationEnv.getStones(PLAYER_1, word) | simulationEnv.getStones(PLAYER_2, word)
+                    | childCells[word]);
+            if (skipInferior) {
+                untried &= ~inferiorMoves[word];
+            }
+            while (untried != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(untried);
+                if (cell >= NUM_CELLS) {
+                    break;
+                }
+                float prior = priorsComputed ? priors.get(cell) : 0f;
+                if (widening) {
+                    if (prior > widenedPrior) {
+                        widenedPrior = prior;
+                        widenedCell = cell;
+                    }
+                } else {
+                    double value = calculateUpperConfidenceBoundForUntried(tree, cell, amafTable, exploration, prior,
+                            context);
+                    if (isBetter(value, bestValue, tieBreak)) {
+                        bestValue = value;
+                        bestCell = cell;
+                    }
+                }
+                untried &= untried - 1;
+            }
+        }
+        if (widenedCell != NONE) {
+            double value = calculateUpperConfidenceBoundForUntried(tree, widenedCell, amafTable, exploration,
+                    widenedPrior, context);
+            if (isBetter(value, bestValue, tieBreak)) {
+                bestCell = widenedCell;
+            }
+        }
+        return bestCell;
+    }
+
+    private static int getMaxChildren(float visits, SearchContext context) {
+        return context.getWideningMinChildren() + (int) Math.pow(visits, context.getWideningExponent());
+    }
+
+    /**
+     * Loads the inferior moves of node into inferiorMoves, a node is analysed the first time it is selected
+     * beyond its children and keeps the moves in the tree. Returns false if no move is skipped: there are none
+     * or every empty cell is inferior.
+     */
+    private boolean loadInferiorMoves(TreeArena tree, int node) {
+        if (!tree.getInferiorMoves(node, inferiorMoves)) {
+            int numInferior = PatternTable.getInferiorMoves(simulationEnv, player1Cells, player2Cells, inferiorMoves);
+            if (numInferior >= simulationEnv.getNumActions()) {
+                Arrays.fill(inferiorMoves, 0L);
+            }
+            tree.setInferiorMoves(node, inferiorMoves);
+        }
+        for (long word : inferiorMoves) {
+            if (word != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the winner of the proven leaf of the path, the simulation environment holds its position
+     * and the leaf is not won yet.
+     */
+    private Player getProvenWinner(byte proof) {
+        Player mover = simulationEnv.getTurn() == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+        return proof == PROVEN_WIN ? mover : simulationEnv.getTurn();
+    }
+
+    /**
+     * Passes the proof of the leaf up the path as far as it proves the parents:
+     * - a proven win of an action is a proven loss of the action into its node, the player to move there wins
+     * - if all actions of a node are proven losses, the action into the node is a proven win. This needs a
+     * child for every empty cell, actions without a node are unknown. With inferior cells this is proven
+     * by the selection instead, which finds no action left at the node
+     */
+    private void propagateProof(TreeArena tree, int rootNumStones) {
+        for (int i = pathLength - 1; i > 0; i--) {
+            int node = path[i];
+            int parent = path[i - 1];
+            byte proof = tree.getProof(node);
+            if (proof == PROVEN_WIN) {
+                tree.setProof(parent, PROVEN_LOSS);
+            } else if (proof == PROVEN_LOSS && areAllActionsLost(tree, parent, NUM_CELLS - rootNumStones - (i - 1))) {
+                tree.setProof(parent, PROVEN_WIN);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean areAllActionsLost(TreeArena tree, int node, int numActions) {
+        int numChildren = 0;
+        for (int child = tree.getFirstChild(node); child != NONE; child = tree.getNextSibling(child)) {
+            if (tree.getProof(child) != PROVEN_LOSS) {
+                return false;
+            }
+            numChildren++;
+        }
+        return numChildren == numActions;
+    }
+
+    /**
+     * Random tie-breaking is reservoir sampling: the n-th tied action replaces the best one with probability 1/n.
+     */
+    private boolean isBetter(double value, double bestValue, MctsConfig.TieBreak tieBreak) {
+        if (value != bestValue) {
+            if (value > bestValue) {
+                numTies = 1;
+                return true;
+            }
+            return false;
+        }
+        return switch (tieBreak) {
+            case FIRST -> false;
+            case LAST -> true;
+            case RANDOM -> random.nextInt(++numTies) == 0;
+        };
+    }
+
+    /**
+     * UCB_i = exploitation + c * exploration
+     * <p>
+     * - exploitation = W_i / N_i (win rate)
+     * - W_i: number of times child_i won
+     * - N_i: number of times child_i visited
+     * <p>
+     * - exploration = EXPLORATION_COEFFICIENT * Math.sqrt(Math.log(N)) / N_i, the numerator is passed in
+     * - N: number of times parent visited
+     * - EXPLORATION_COEFFICIENT: adjust the amount of exploration
+     * <p>
+     * If the transposition table has seen the position of child_i more often than this edge,
+     * the win rate of the table is used for the exploitation.
+     * <p>
+     * RAVE: the exploitation is blended with the AMAF win rate of the action,
+     * (1 - beta) * W_i / N_i + beta * AMAF_i with beta = sqrt(k / (3 * N_i + k)) and k = raveEquivalence.
+     * <p>
+     * Progressive bias: priorWeight * P_i / (N_i + 1) is added, P_i is the prior of the action.
+     */
+    private double calculateUpperConfidenceBoundForTrees(TreeArena tree, int child, int cell, int amafTable,
+                                                         double exploration, Player activePlayer,
+                                                         TranspositionTable transpositionTable,
+                                                         SearchContext context) {
+        double W_i = tree.getValues(child);
+        double N_i = tree.getVisits(child);
+        double P_i = tree.getPrior(child);
+        if (N_i == 0.0) {
+            // added by another thread which did not back up yet
+            return calculateUpperConfidenceBoundForUntried(tree, cell, amafTable, exploration, P_i, context);
+        }
+
+        // exploitation
+        double exploitation = W_i / N_i;
+        if (transpositionTable != null) {
+            int slot = transpositionTable.find(simulationEnv.getHashAfterMove(cell, activePlayer));
+            if (slot >= 0 && transpositionTable.getVisits(slot) > N_i) {
+                exploitation = transpositionTable.getValues(slot) / transpositionTable.getVisits(slot);
+            }
+        }
+        if (amafTable != NONE && tree.getAmafVisits(amafTable, cell) > 0f) {
+            double k = context.getRaveEquivalence();
+            double beta = Math.sqrt(k / (3 * N_i + k));
+            exploitation = (1 - beta) * exploitation
+                    + beta * tree.getAmafValues(amafTable, cell) / tree.getAmafVisits(amafTable, cell);
+        }
+
+        // sum
+        return exploitation + exploration / N_i + context.getPriorWeight() * P_i / (N_i + 1);
+    }
+
+    /**
+     * An action without visits is rated with the first-play urgency. With RAVE it is rated with its AMAF
+     * win rate as if it was visited once. Both get the full progressive bias.
+     */
+    private static double calculateUpperConfidenceBoundForUntried(TreeArena tree, int cell, int amafTable,
+                                                                  double exploration, double prior,
+                                                                  SearchContext context) {
+        double bias = context.getPriorWeight() * prior;
+        if (amafTable != NONE && tree.getAmafVisits(amafTable, cell) > 0f) {
+            return tree.getAmafValues(amafTable, cell) / tree.getAmafVisits(amafTable, cell) + exploration + bias;
+        }
+        return context.getFirstPlayUrgency() + bias;
+    }
+
+    /**
+     * Updates the statistics on the selected path and takes back the virtual loss of the selection.
+     * The positions on the path are updated in the transposition table as well.
+     * <p>
+     * RAVE: every node on the path also updates the AMAF statistics of all its actions which the
+     * active player of the node played later on, in the tree or in the playout (all moves as first).
+     */
+    private void backup(TreeArena tree, BitBoard rootState, SearchContext context, Player winner,
+                        float virtualLoss) {
+        TranspositionTable transpositionTable = context.getTranspositionTable();
+        BitBoard finalPosition = simulationEnv;
+        for (int word = 0; word < NUM_WORDS; word++) {
+            playedCells[word] = rootState.getStones(PLAYER_1, word) | rootState.getStones(PLAYER_2, word);
+        }
+
+        Player activePlayer = rootState.getTurn();
+        tree.addVisits(ROOT, 1f);
+        for (int i = 0; ; i++) {
+            int node = path[i];
+            float value = activePlayer == winner ? 1f : 0f;
+            if (tree.isRave()) {
+                int amafTable = tree.getOrCreateAmafTable(node);
+                if (amafTable != NONE) {
+                    updateAmaf(tree, amafTable, finalPosition, activePlayer, value);
+                }
+            }
+            if (i + 1 == pathLength) {
+                break;
+            }
+
+            int child = path[i + 1];
+            if (value > 0f) {
+                tree.addValues(child, value);
+            }
+            tree.addVisits(child, 1f - virtualLoss);
+            if (transpositionTable != null) {
+                transpositionTable.update(pathHashes[i + 1], rootState.getNumStones() + i + 1, value);
+            }
+
+            int cell = tree.getCell(child);
+            playedCells[cell >>> 6] |= 1L << cell;
+            activePlayer = activePlayer == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+        }
+    }
+
+    private void updateAmaf(TreeArena tree, int amafTable, BitBoard finalPosition, Player activePlayer, float value) {
+        for (int word = 0; word < NUM_WORDS; word++) {
+            long playedLater = finalPosition.getStones(activePlayer, word) & ~playedCells[word];
+            while (playedLater != 0) {
+                tree.addAmaf(amafTable, (word << 6) + Long.numberOfTrailingZeros(playedLater), value);
+                playedLater &= playedLater - 1;
+            }
+        }
+    }
+}
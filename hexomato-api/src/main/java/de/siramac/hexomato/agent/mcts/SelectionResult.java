@@ -1,4 +0,0 @@
-package de.siramac.hexomato.agent.mcts;
-
-public record SelectionResult(UCTNode node, Integer action) {
-}
@@ -0,0 +1,141 @@
+package de.siramac.hexomato.agent.mcts;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size table of search statistics keyed by the Zobrist hash of a position, so positions reached
+ * by different move orders share their statistics. The values are the wins of the player who moved
+ * into the position.
+ * <p>
+ * The table is organized in buckets of two slots. A new position replaces the slot with fewer visits,
+ * on a tie the deeper position (more stones) is replaced. Like the tree it is updated without locks:
+ * an update checks the key of its slot again right before adding, and a replacement resets the statistics
+ * before it publishes the new key. Only a replacement between that check and the add moves one result to
+ * the new position.
+ */
+public class TranspositionTable {
+
+    private static final VarHandle STATISTICS = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long EMPTY = 0L; // the hash of the empty board is never stored, it is always a root
+
+    private final int mask;
+    private final long[] keys;
+    private final double[] visits;
+    private final double[] values;
+    private final int[] depths;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder replacements = new LongAdder();
+
+    /**
+     * @param capacity number of slots, rounded down to a power of two
+     */
+    public TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity));
+        this.mask = size - 1;
+        this.keys = new long[size];
+        this.visits = new double[size];
+        this.values = new double[size];
+        this.depths = new int[size];
+    }
+
+    /**
+     * Returns the slot of the position or -1 if the position is not stored.
+     */
+    public int find(long hash) {
+        if (hash == EMPTY) {
+            return -1; // would match the empty slots
+        }
+        int slot = bucket(hash);
+        if (keys[slot] == hash) {
+            return slot;
+        }
+        if (keys[slot + 1] == hash) {
+            return slot + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if a new node of the tree is a transposition of a stored position, counted for the hit rate.
+     */
+    public boolean lookup(long hash) {
+        lookups.increment();
+        if (find(hash) >= 0) {
+            hits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public double getVisits(int slot) {
+        return visits[slot];
+    }
+
+    public double getValues(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Adds the result of one simulation to the position, the position is stored if it is missing.
+     *
+     * @param depth number of stones of the position
+     * @param value 1 if the player who moved into the position won the simulation, else 0
+     */
+    public void update(long hash, int depth, double value) {
+        if (hash == EMPTY) {
+            return;
+        }
+        int slot = find(hash);
+        if (slot < 0) {
+            slot = store(hash, depth);
+        }
+        if ((long) KEYS.getAcquire(keys, slot) != hash) {
+            return; // replaced by another thread in the meantime
+        }
+        STATISTICS.getAndAdd(visits, slot, 1.0);
+        STATISTICS.getAndAdd(values, slot, value);
+    }
+
+    /**
+     * Returns "hits/lookups (hit rate), replacements" since the last call and resets the counters.
+     */
+    public String getAndResetCounters() {
+        long numLookups = lookups.sumThenReset();
+        long numHits = hits.sumThenReset();
+        double hitRate = numLookups == 0 ? 0.0 : 100.0 * numHits / numLookups;
+        return String.format("%d/%d hits (%.1f%%), %d replacements", numHits, numLookups, hitRate,
+                replacements.sumThenReset());
+    }
+
+    private int store(long hash, int depth) {
+        int bucket = bucket(hash);
+        int slot = isLessValuable(bucket, bucket + 1) ? bucket : bucket + 1;
+        if (keys[slot] != EMPTY) {
+            replacements.increment();
+        }
+        visits[slot] = 0.0;
+        values[slot] = 0.0;
+        depths[slot] = depth;
+        KEYS.setRelease(keys, slot, hash);
+        return slot;
+    }
+
+    private boolean isLessValuable(int slot, int other) {
+        if (keys[slot] == EMPTY || keys[other] == EMPTY) {
+            return keys[slot] == EMPTY;
+        }
+        if (visits[slot] != visits[other]) {
+            return visits[slot] < visits[other];
+        }
+        return depths[slot] >= depths[other];
+    }
+
+    private int bucket(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask & ~1;
+    }
+}
@@ -0,0 +1,465 @@
+package de.siramac.hexomato.agent.mcts;
+
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.BitBoard.NUM_WORDS;
+
+/**
+ * Search tree stored in primitive arrays, a node is an index into the arrays. Positions are not stored,
+ * the search reconstructs them by replaying the cells from the root, so a node costs about 35 bytes
+ * instead of a board per node.
+ * <p>
+ * - parent: index of the parent, NONE for the root
+ * - cell: the action which leads from the parent to the node
+ * - firstChild, nextSibling: the children of a node as a list, a child is added when its action is selected
+ * the first time
+ * - visits, values: statistics of the action into the node, the values are the wins of the player who played it
+ * - prior: heuristic value of the action into the node in [0, 1], set when the node is added
+ * - proof: MCTS-Solver, PROVEN_WIN or PROVEN_LOSS if the result of the action into the node is known for the
+ * player who played it, UNKNOWN otherwise
+ * - amafTable: RAVE statistics of the actions of the node indexed by cell, only nodes with at least
+ * AMAF_MIN_VISITS visits get a table
+ * - inferiorMoves: the moves of the player to move which the selection skips, analysed once per node, see
+ * {@link de.siramac.hexomato.pattern.PatternTable#getInferiorMoves}
+ * <p>
+ * The arrays are allocated once and reused by every search. Several threads may search the same tree:
+ * statistics are updated with atomic adds and children are published with compare-and-set, no locks
+ * are taken, except the lock which keeps the searches out while the tree is compacted.
+ * A child always has a greater index than its parent.
+ */
+public class TreeArena {
+
+    public static final int NONE = -1;
+    public static final int ROOT = 0;
+    public static final byte UNKNOWN = 0;
+    public static final byte PROVEN_WIN = 1;
+    public static final byte PROVEN_LOSS = -1;
+    static final float AMAF_MIN_VISITS = 16;
+    // parent, cell, firstChild, nextSibling, visits, values, proof, prior and forward of a node
+    private static final int NODE_BYTES = 31;
+
+    private static final VarHandle FLOATS = MethodHandles.arrayElementVarHandle(float[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    // set in the last word of the inferior moves of an analysed node, beyond the last cell
+    private static final long ANALYSED = Long.MIN_VALUE;
+
+    @Getter
+    private final int capacity;
+    private final int[] parent;
+    private final short[] cell;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final float[] visits;
+    private final float[] values;
+    private final byte[] proof;
+    private final float[] prior;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int[] amafTable; // null if RAVE is disabled
+    private final float[] amafVisits; // table * NUM_CELLS + cell
+    private final float[] amafValues;
+    private final int maxAmafTables;
+    private final AtomicInteger numAmafTables = new AtomicInteger();
+
+    private final long[] inferiorMoves; // node * NUM_WORDS + word, null if the moves are not kept
+
+    @Getter
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(); // read: search, write: compaction
+    private final int[] forward; // new index of every node while the tree is compacted
+    private final int[] tableForward; // new index of every AMAF table while the tree is compacted
+
+    /**
+     * @param capacity maximal number of nodes
+     * @param rave     allocate AMAF tables for RAVE
+     */
+    public TreeArena(int capacity, boolean rave) {
+        this(capacity, rave, false);
+    }
+
+    /**
+     * @param capacity      maximal number of nodes
+     * @param rave          allocate AMAF tables for RAVE
+     * @param inferiorMoves keep the inferior moves of every node
+     */
+    public TreeArena(int capacity, boolean rave, boolean inferiorMoves) {
+        this.capacity = Math.max(1, capacity);
+        this.parent = new int[this.capacity];
+        this.cell = new short[this.capacity];
+        this.firstChild = new int[this.capacity];
+        this.nextSibling = new int[this.capacity];
+        this.visits = new float[this.capacity];
+        this.values = new float[this.capacity];
+        this.proof = new byte[this.capacity];
+        this.prior = new float[this.capacity];
+        this.forward = new int[this.capacity];
+        this.maxAmafTables = rave ? Math.max(1, this.capacity >>> 7) : 0;
+        this.amafTable = rave ? new int[this.capacity] : null;
+        this.amafVisits = rave ? new float[maxAmafTables * NUM_CELLS] : null;
+        this.amafValues = rave ? new float[maxAmafTables * NUM_CELLS] : null;
+        this.tableForward = new int[maxAmafTables];
+        this.inferiorMoves = inferiorMoves ? new long[this.capacity * NUM_WORDS] : null;
+        clear();
+    }
+
+    /**
+     * Removes all nodes except a new root without statistics.
+     */
+    public void clear() {
+        size.set(0);
+        numAmafTables.set(0);
+        initNode(allocate(), NONE, NONE);
+    }
+
+    /**
+     * Heap taken by the arrays of an arena, about NODE_BYTES per node, with RAVE the AMAF tables as well,
+     * with inferior moves NUM_WORDS longs per node.
+     */
+    public static long getBytes(int capacity, boolean rave, boolean inferiorMoves) {
+        long nodes = Math.max(1, capacity);
+        long tables = rave ? Math.max(1, nodes >>> 7) : 0;
+        long nodeBytes = NODE_BYTES + (rave ? Integer.BYTES : 0) + (inferiorMoves ? NUM_WORDS * Long.BYTES : 0);
+        return nodes * nodeBytes + tables * (2L * NUM_CELLS * Float.BYTES + Integer.BYTES);
+    }
+
+    public long getBytes() {
+        return getBytes(capacity, isRave(), hasInferiorMoves());
+    }
+
+    public int getSize() {
+        return Math.min(size.get(), capacity);
+    }
+
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    public int getCell(int node) {
+        return cell[node];
+    }
+
+    public int getFirstChild(int node) {
+        return (int) INTS.getAcquire(firstChild, node);
+    }
+
+    public int getNextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    public float getVisits(int node) {
+        return visits[node];
+    }
+
+    public float getValues(int node) {
+        return values[node];
+    }
+
+    public byte getProof(int node) {
+        return proof[node];
+    }
+
+    /**
+     * Marks the result of the action into node as proven. A proof never changes, so threads racing to
+     * set it write the same value.
+     */
+    public void setProof(int node, byte result) {
+        proof[node] = result;
+    }
+
+    public float getPrior(int node) {
+        return prior[node];
+    }
+
+    public void setPrior(int node, float value) {
+        prior[node] = value;
+    }
+
+    public void addVisits(int node, float delta) {
+        FLOATS.getAndAdd(visits, node, delta);
+    }
+
+    public void addValues(int node, float delta) {
+        FLOATS.getAndAdd(values, node, delta);
+    }
+
+    /**
+     * Returns the child reached by playing cell, NONE if it was not added.
+     */
+    public int findChild(int node, int cell) {
+        for (int child = getFirstChild(node); child != NONE; child = nextSibling[child]) {
+            if (this.cell[child] == cell) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the child reached by playing cell, it is added if it is missing. Returns NONE if the arena is full.
+     * If another thread adds the same child concurrently, both get the same node. The node allocated by the
+     * losing thread is never linked, it loses its parent, so the next compaction drops it.
+     */
+    public int addChild(int node, int cell) {
+        int head = getFirstChild(node);
+        int child = findChild(node, cell);
+        if (child != NONE) {
+            return child;
+        }
+        child = allocate();
+        if (child == NONE) {
+            return NONE;
+        }
+        initNode(child, node, cell);
+        while (true) {
+            nextSibling[child] = head;
+            if (INTS.compareAndSet(firstChild, node, head, child)) {
+                return child;
+            }
+            // children were added in the meantime: they are in front of the old head
+            int newHead = getFirstChild(node);
+            for (int other = newHead; other != head; other = nextSibling[other]) {
+                if (this.cell[other] == cell) {
+                    parent[child] = NONE; // the allocated node stays unused
+                    return other;
+                }
+            }
+            head = newHead;
+        }
+    }
+
+    /**
+     * Adds the visits of the children of node to visitsByCell.
+     */
+    public void addChildVisits(int node, double[] visitsByCell) {
+        for (int child = getFirstChild(node); child != NONE; child = nextSibling[child]) {
+            visitsByCell[cell[child]] += visits[child];
+        }
+    }
+
+    public boolean isRave() {
+        return amafTable != null;
+    }
+
+    /**
+     * Returns the AMAF table of node or NONE.
+     */
+    public int getAmafTable(int node) {
+        return amafTable == null ? NONE : (int) INTS.getAcquire(amafTable, node);
+    }
+
+    /**
+     * Returns the AMAF table of node, a table is created once the node has AMAF_MIN_VISITS visits.
+     * Returns NONE before, if RAVE is disabled, or if all tables are used.
+     */
+    public int getOrCreateAmafTable(int node) {
+        int table = getAmafTable(node);
+        if (table != NONE || amafTable == null || visits[node] < AMAF_MIN_VISITS
+                || numAmafTables.get() >= maxAmafTables) {
+            return table;
+        }
+        int newTable = numAmafTables.getAndIncrement();
+        if (newTable >= maxAmafTables) {
+            return NONE;
+        }
+        Arrays.fill(amafVisits, newTable * NUM_CELLS, (newTable + 1) * NUM_CELLS, 0f);
+        Arrays.fill(amafValues, newTable * NUM_CELLS, (newTable + 1) * NUM_CELLS, 0f);
+        if (INTS.compareAndSet(amafTable, node, NONE, newTable)) {
+            return newTable;
+        }
+        return getAmafTable(node);
+    }
+
+    public float getAmafVisits(int table, int cell) {
+        return amafVisits[table * NUM_CELLS + cell];
+    }
+
+    public float getAmafValues(int table, int cell) {
+        return amafValues[table * NUM_CELLS + cell];
+    }
+
+    public void addAmaf(int table, int cell, float value) {
+        int index = table * NUM_CELLS + cell;
+        if (value != 0f) {
+            FLOATS.getAndAdd(amafValues, index, value);
+        }
+        FLOATS.getAndAdd(amafVisits, index, 1f);
+    }
+
+    public boolean hasInferiorMoves() {
+        return inferiorMoves != null;
+    }
+
+    /**
+     * Copies the inferior moves of node into moves, NUM_WORDS. Returns false if node was not analysed yet or
+     * the arena keeps no inferior moves.
+     */
+    public boolean getInferiorMoves(int node, long[] moves) {
+        if (inferiorMoves == null) {
+            return false;
+        }
+        int offset = node * NUM_WORDS;
+        long last = (long) LONGS.getAcquire(inferiorMoves, offset + NUM_WORDS - 1);
+        if ((last & ANALYSED) == 0) {
+            return false;
+        }
+        System.arraycopy(inferiorMoves, offset, moves, 0, NUM_WORDS - 1);
+        moves[NUM_WORDS - 1] = last & ~ANALYSED;
+        return true;
+    }
+
+    /**
+     * Keeps the inferior moves of node. Threads racing to analyse the same node write the same moves,
+     * the last word is published last.
+     */
+    public void setInferiorMoves(int node, long[] moves) {
+        if (inferiorMoves == null) {
+            return;
+        }
+        int offset = node * NUM_WORDS;
+        System.arraycopy(moves, 0, inferiorMoves, offset, NUM_WORDS - 1);
+        LONGS.setRelease(inferiorMoves, offset + NUM_WORDS - 1, moves[NUM_WORDS - 1] | ANALYSED);
+    }
+
+    public boolean isFull() {
+        return size.get() >= capacity;
+    }
+
+    /**
+     * Makes node the root and removes all nodes which are not below it. The remaining nodes keep their
+     * statistics. Must not run concurrently with a search.
+     */
+    public void reroot(int newRoot) {
+        compact(newRoot, 0f);
+    }
+
+    /**
+     * Recycles the least visited subtrees until at most targetSize nodes are left: the children of all
+     * nodes with fewer visits than a threshold are removed, the nodes themselves stay as leaves with
+     * their statistics and are expanded again if the search comes back. The children of the root are
+     * always kept. Must not run concurrently with a search.
+     *
+     * @return the number of removed nodes
+     */
+    public int prune(int targetSize) {
+        int oldSize = getSize();
+        // histogram of the nodes by the visits of their parent: bucket b holds visits in [2^(b-1), 2^b)
+        int[] numNodes = new int[Integer.SIZE + 1];
+        for (int node = 1; node < oldSize; node++) {
+            if (parent[node] != ROOT && parent[node] != NONE) {
+                numNodes[bucket(visits[parent[node]])]++;
+            }
+        }
+        // smallest threshold which keeps at most targetSize nodes
+        int kept = oldSize;
+        int threshold = 0;
+        while (kept > targetSize && threshold < Integer.SIZE) {
+            kept -= numNodes[threshold++];
+        }
+        compact(ROOT, threshold == 0 ? 0f : (float) Math.pow(2, threshold - 1));
+        return oldSize - getSize();
+    }
+
+    private static int bucket(float visits) {
+        return visits < 1f ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros((int) visits);
+    }
+
+    /**
+     * Keeps newRoot and the nodes below it whose parent is newRoot or has at least minVisits visits.
+     * The kept nodes are moved to the front of the arrays, keeping their order, so a parent still
+     * comes before its children.
+     */
+    private void compact(int newRoot, float minVisits) {
+        int oldSize = getSize();
+        // mark: a node is kept if its parent is kept and expanded, parents come first, unused nodes have no parent
+        int newSize = 0;
+        for (int node = 0; node < oldSize; node++) {
+            boolean keep = node == newRoot || (node > newRoot && parent[node] != NONE
+                    && forward[parent[node]] != NONE
+                    && (parent[node] == newRoot || visits[parent[node]] >= minVisits));
+            forward[node] = keep ? newSize++ : NONE;
+        }
+        int numTables = amafTable != null ? compactAmafTables(oldSize) : 0;
+
+        // move: the new index is never greater than the old one, so nothing unread is overwritten
+        for (int node = newRoot; node < oldSize; node++) {
+            int target = forward[node];
+            if (target == NONE) {
+                continue;
+            }
+            boolean root = node == newRoot;
+            // a proof resting on removed children is dropped, it is proven again if the search comes back
+            boolean childrenRemoved = firstChild[node] != NONE && forward[firstChild[node]] == NONE;
+            parent[target] = root ? NONE : forward[parent[node]];
+            cell[target] = root ? (short) NONE : cell[node];
+            firstChild[target] = firstChild[node] == NONE ? NONE : forward[firstChild[node]];
+            nextSibling[target] = root || nextSibling[node] == NONE ? NONE : forward[nextSibling[node]];
+            visits[target] = visits[node];
+            values[target] = values[node];
+            proof[target] = childrenRemoved ? UNKNOWN : proof[node];
+            prior[target] = prior[node];
+            if (amafTable != null) {
+                amafTable[target] = amafTable[node] == NONE ? NONE : tableForward[amafTable[node]];
+            }
+            if (inferiorMoves != null) {
+                System.arraycopy(inferiorMoves, node * NUM_WORDS, inferiorMoves, target * NUM_WORDS, NUM_WORDS);
+            }
+        }
+        size.set(newSize);
+        numAmafTables.set(numTables);
+    }
+
+    /**
+     * Moves the tables of the kept nodes to the front, in ascending order like the nodes.
+     */
+    private int compactAmafTables(int oldSize) {
+        int oldNumTables = Math.min(numAmafTables.get(), maxAmafTables);
+        Arrays.fill(tableForward, 0, oldNumTables, NONE);
+        for (int node = 0; node < oldSize; node++) {
+            if (forward[node] != NONE && amafTable[node] != NONE) {
+                tableForward[amafTable[node]] = 0;
+            }
+        }
+        int numTables = 0;
+        for (int table = 0; table < oldNumTables; table++) {
+            if (tableForward[table] != NONE) {
+                System.arraycopy(amafVisits, table * NUM_CELLS, amafVisits, numTables * NUM_CELLS, NUM_CELLS);
+                System.arraycopy(amafValues, table * NUM_CELLS, amafValues, numTables * NUM_CELLS, NUM_CELLS);
+                tableForward[table] = numTables++;
+            }
+        }
+        return numTables;
+    }
+
+    private int allocate() {
+        if (size.get() >= capacity) {
+            return NONE;
+        }
+        int node = size.getAndIncrement();
+        return node < capacity ? node : NONE;
+    }
+
+    private void initNode(int node, int parent, int cell) {
+        this.parent[node] = parent;
+        this.cell[node] = (short) cell;
+        this.firstChild[node] = NONE;
+        this.nextSibling[node] = NONE;
+        this.visits[node] = 0f;
+        this.values[node] = 0f;
+        this.proof[node] = UNKNOWN;
+        this.prior[node] = 0f;
+        if (amafTable != null) {
+            amafTable[node] = NONE;
+        }
+        if (inferiorMoves != null) {
+            inferiorMoves[node * NUM_WORDS + NUM_WORDS - 1] = 0L; // not analysed
+        }
+    }
+}
@@ -1,12 +1,53 @@
 package de.siramac.hexomato.agent.mcts;
 
-import java.util.stream.IntStream;
+import java.lang.management.ManagementFactory;
 
 public class Util {
 
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() ? threads : null;
+
+    /**
+     * Index of the greatest value, the last one on a tie.
+     */
     public static int getArgMax(double[] array) {
-        return IntStream.range(0, array.length)
-                .reduce((i, j) -> array[i] >= array[j] ? i : j)
-                .orElseThrow(() -> new IllegalArgumentException("Array is empty"));
+        if (array.length == 0) {
+            throw new IllegalArgumentException("Array is empty");
+        }
+        int argMax = 0;
+        for (int i = 1; i < array.length; i++) {
+            if (array[i] >= array[argMax]) {
+                argMax = i;
+            }
+        }
+        return argMax;
+    }
+
+    /**
+     * Entropy in nats of the distribution proportional to the positive weights, 0 if there are none.
+     */
+    public static double getEntropy(double[] weights) {
+        double sum = 0.0;
+        for (double weight : weights) {
+            sum += weight > 0.0 ? weight : 0.0;
+        }
+        double entropy = 0.0;
+        for (double weight : weights) {
+            if (weight > 0.0) {
+                double p = weight / sum;
+                entropy -= p * Math.log(p);
+            }
+        }
+        return entropy;
+    }
+
+    /**
+     * Heap allocated by the current thread so far, 0 if the JVM doesn't measure it.
+     */
+    public static long getAllocatedBytes() {
+        return THREADS != null && THREADS.isThreadAllocatedMemoryEnabled()
+                ? THREADS.getCurrentThreadAllocatedBytes()
+                : 0L;
     }
 }
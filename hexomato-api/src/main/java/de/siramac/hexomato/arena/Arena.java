@@ -0,0 +1,157 @@
+package de.siramac.hexomato.arena;
+
+import ch.qos.logback.classic.Level;
+import de.siramac.hexomato.agent.Agent;
+import de.siramac.hexomato.agent.mcts.ArenaPool;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.domain.Node;
+import de.siramac.hexomato.domain.Player;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.siramac.hexomato.domain.Game.BOARD_SIZE;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+
+/**
+ * Plays a match of two {@link Contestant}s to compare their strength and throughput, e.g. before and after a
+ * change of an agent. The games are played in pairs: both games of a pair start with the same random
+ * opening move of PLAYER_1, and the contestants swap colors, so neither the first move advantage nor the
+ * opening decides the match. Every game gets new agents, the pairs run in parallel on parallelGames threads.
+ * <p>
+ * The peak heap is the sum of the peaks of the heap pools during the match, an upper bound of the used heap.
+ * <p>
+ * Run it with the packaged application, arguments: games specA specB [parallelGames, default cores], see
+ * {@link Contestant#parse} for the specs:
+ * java -cp hexomato-api-exec.jar -Dloader.main=de.siramac.hexomato.arena.Arena
+ * org.springframework.boot.loader.launch.PropertiesLauncher 200 mcts:playouts=2000
+ * mcts:playouts=2000,prune-inferior-cells=false
+ */
+@Slf4j
+public class Arena {
+
+    private final Contestant contestantA;
+    private final Contestant contestantB;
+    private final int parallelGames;
+    private final long seed;
+
+    public Arena(Contestant contestantA, Contestant contestantB, int parallelGames, long seed) {
+        this.contestantA = contestantA;
+        this.contestantB = contestantB;
+        this.parallelGames = Math.max(1, parallelGames);
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Arguments: games specA specB [parallelGames]");
+            System.exit(1);
+        }
+        int numGames = Integer.parseInt(args[0]);
+        int parallelGames = args.length > 3
+                ? Integer.parseInt(args[3])
+                : Runtime.getRuntime().availableProcessors();
+        // the agents log every move
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("de.siramac.hexomato.agent")).setLevel(Level.WARN);
+        ArenaPool arenaPool = new ArenaPool(Runtime.getRuntime().maxMemory() / 4);
+        Arena arena = new Arena(Contestant.parse(args[1], arenaPool), Contestant.parse(args[2], arenaPool),
+                parallelGames, System.nanoTime());
+        MatchResult result = arena.play(numGames);
+        System.out.println(result.toReport());
+    }
+
+    /**
+     * Plays numGames games, rounded up to full pairs.
+     */
+    public MatchResult play(int numGames) {
+        MatchResult result = new MatchResult(contestantA.getName(), contestantB.getName());
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long startNanos = System.nanoTime();
+
+        int numPairs = (numGames + 1) / 2;
+        AtomicInteger numFinished = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelGames);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            Random random = new Random(seed);
+            for (int pair = 0; pair < numPairs; pair++) {
+                int openingRow = random.nextInt(BOARD_SIZE);
+                int openingCol = random.nextInt(BOARD_SIZE);
+                for (boolean aIsPlayer1 : new boolean[]{true, false}) {
+                    futures.add(executor.submit(() -> {
+                        playGame(result, openingRow, openingCol, aIsPlayer1);
+                        int finished = numFinished.incrementAndGet();
+                        if (finished % Math.max(1, numPairs / 5) == 0) {
+                            log.info("{}/{} games, score of A: {}", finished, 2 * numPairs,
+                                    String.format("%.3f", result.getScore()));
+                        }
+                    }));
+                }
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long peakHeapBytes = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        result.finish(peakHeapBytes, System.nanoTime() - startNanos);
+        return result;
+    }
+
+    private void playGame(MatchResult result, int openingRow, int openingCol, boolean aIsPlayer1) {
+        Contestant player1 = aIsPlayer1 ? contestantA : contestantB;
+        Contestant player2 = aIsPlayer1 ? contestantB : contestantA;
+        MatchResult.Stats stats1 = aIsPlayer1 ? result.getStatsA() : result.getStatsB();
+        MatchResult.Stats stats2 = aIsPlayer1 ? result.getStatsB() : result.getStatsA();
+        Game game = new Game(PLAYER_1, false, player1.getName());
+        game.setNamePlayer2(player2.getName());
+        game.makeFinalMoveOnBoard(openingRow, openingCol, PLAYER_1);
+
+        try (Agent agent1 = player1.createAgent(PLAYER_1); Agent agent2 = player2.createAgent(PLAYER_2)) {
+            while (game.getWinner() == null) {
+                Player turn = game.getTurn();
+                Agent agent = turn == PLAYER_1 ? agent1 : agent2;
+                long startPlayouts = agent.getNumPlayouts();
+                long startNanos = System.nanoTime();
+                Node node = agent.getMove(game);
+                long nanos = System.nanoTime() - startNanos;
+                if (game.getBoard()[node.getRow()][node.getCol()].getPlayer() != null) {
+                    throw new IllegalStateException("Invalid move of " + (turn == PLAYER_1 ? player1 : player2)
+                            .getName() + ": " + node.getRow() + ", " + node.getCol());
+                }
+                (turn == PLAYER_1 ? stats1 : stats2).addMove(nanos, agent.getNumPlayouts() - startPlayouts);
+                game.makeFinalMoveOnBoard(node.getRow(), node.getCol(), turn);
+            }
+        }
+        boolean wonByPlayer1 = game.getWinner() == PLAYER_1;
+        result.addGame(wonByPlayer1 == aIsPlayer1, wonByPlayer1);
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Match was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Game failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package de.siramac.hexomato.arena;
+
+import de.siramac.hexomato.agent.Agent;
+import de.siramac.hexomato.agent.alphazero.AlphaZeroAgent;
+import de.siramac.hexomato.agent.alphazero.AlphaZeroConfig;
+import de.siramac.hexomato.agent.alphazero.PolicyValueNet;
+import de.siramac.hexomato.agent.mcts.ArenaPool;
+import de.siramac.hexomato.agent.mcts.MctsAgent;
+import de.siramac.hexomato.agent.mcts.MctsConfig;
+import de.siramac.hexomato.agent.mcts.SearchBudget;
+import de.siramac.hexomato.domain.Player;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A player of the {@link Arena}: a name and a factory for a new agent per game and color.
+ * <p>
+ * {@link #parse} creates contestants from specs like mcts:playouts=2000,prune-inferior-cells=false:
+ * the kind of agent, then settings of its config in kebab case. A contestant searches with one thread
+ * and without time limit by default, the arena plays the games in parallel instead.
+ * - common: time-millis, playouts, nodes, early-stop, threads, node-budget
+ * - mcts: prune-inferior-cells, prior-weight, widening-min-children, playout-cutoff, rave-equivalence,
+ * first-play-urgency, reuse-tree, transposition-table-size
+ * - alphazero: network (required), batch-size, exploration-constant, virtual-loss
+ * Other settings are rejected, so a misspelt setting never runs the default config.
+ */
+@Getter
+public class Contestant {
+
+    private static final long DEFAULT_PLAYOUTS = 1_000;
+    private static final int DEFAULT_NODE_BUDGET = 1 << 18;
+    private static final Set<String> COMMON_SETTINGS = Set.of("time-millis", "playouts", "nodes", "early-stop",
+            "threads", "node-budget");
+    private static final Set<String> MCTS_SETTINGS = Set.of("prune-inferior-cells", "prior-weight",
+            "widening-min-children", "playout-cutoff", "rave-equivalence", "first-play-urgency", "reuse-tree",
+            "transposition-table-size");
+    private static final Set<String> ALPHAZERO_SETTINGS = Set.of("network", "batch-size", "exploration-constant",
+            "virtual-loss");
+
+    private final String name;
+    private final Function<Player, Agent> agentFactory;
+
+    public Contestant(String name, Function<Player, Agent> agentFactory) {
+        this.name = name;
+        this.agentFactory = agentFactory;
+    }
+
+    public Agent createAgent(Player player) {
+        return agentFactory.apply(player);
+    }
+
+    /**
+     * Returns the contestant of the spec, its agents take their trees from arenaPool.
+     */
+    public static Contestant parse(String spec, ArenaPool arenaPool) {
+        int colon = spec.indexOf(':');
+        String kind = colon < 0 ? spec : spec.substring(0, colon);
+        Map<String, String> settings = new HashMap<>();
+        if (colon >= 0 && colon + 1 < spec.length()) {
+            for (String setting : spec.substring(colon + 1).split(",")) {
+                String[] keyAndValue = setting.split("=", 2);
+                if (keyAndValue.length != 2) {
+                    throw new IllegalArgumentException("Setting without value in " + spec + ": " + setting);
+                }
+                settings.put(keyAndValue[0].trim(), keyAndValue[1].trim());
+            }
+        }
+        SearchBudget budget = SearchBudget.builder()
+                .timeMillis(Long.parseLong(settings.getOrDefault("time-millis", "0")))
+                .playouts(Long.parseLong(settings.getOrDefault("playouts",
+                        settings.containsKey("time-millis") ? "0" : String.valueOf(DEFAULT_PLAYOUTS))))
+                .nodes(Integer.parseInt(settings.getOrDefault("nodes", "0")))
+                .earlyStop(Boolean.parseBoolean(settings.getOrDefault("early-stop", "true")))
+                .build();
+        int numThreads = Integer.parseInt(settings.getOrDefault("threads", "1"));
+        int nodeBudget = Integer.parseInt(settings.getOrDefault("node-budget", String.valueOf(DEFAULT_NODE_BUDGET)));
+        return switch (kind) {
+            case "mcts" -> createMcts(spec, settings, budget, numThreads, nodeBudget, arenaPool);
+            case "alphazero" -> createAlphaZero(spec, settings, budget, numThreads, nodeBudget, arenaPool);
+            default -> throw new IllegalArgumentException("Unknown agent " + kind + " in " + spec
+                    + ", expected mcts or alphazero");
+        };
+    }
+
+    private static Contestant createMcts(String spec, Map<String, String> settings, SearchBudget budget,
+                                         int numThreads, int nodeBudget, ArenaPool arenaPool) {
+        checkSettings(spec, settings, MCTS_SETTINGS);
+        MctsConfig defaults = MctsConfig.DEFAULT;
+        MctsConfig config = MctsConfig.builder()
+                .budget(budget)
+                .numThreads(numThreads)
+                .nodeBudget(nodeBudget)
+                .pruneInferiorCells(Boolean.parseBoolean(settings.getOrDefault("prune-inferior-cells",
+                        String.valueOf(defaults.isPruneInferiorCells()))))
+                .priorWeight(Double.parseDouble(settings.getOrDefault("prior-weight",
+                        String.valueOf(defaults.getPriorWeight()))))
+                .wideningMinChildren(Integer.parseInt(settings.getOrDefault("widening-min-children",
+                        String.valueOf(defaults.getWideningMinChildren()))))
+                .playoutCutoff(Integer.parseInt(settings.getOrDefault("playout-cutoff",
+                        String.valueOf(defaults.getPlayoutCutoff()))))
+                .raveEquivalence(Double.parseDouble(settings.getOrDefault("rave-equivalence",
+                        String.valueOf(defaults.getRaveEquivalence()))))
+                .firstPlayUrgency(Double.parseDouble(settings.getOrDefault("first-play-urgency",
+                        String.valueOf(defaults.getFirstPlayUrgency()))))
+                .reuseTree(Boolean.parseBoolean(settings.getOrDefault("reuse-tree",
+                        String.valueOf(defaults.isReuseTree()))))
+                .transpositionTableSize(Integer.parseInt(settings.getOrDefault("transposition-table-size",
+                        String.valueOf(defaults.getTranspositionTableSize()))))
+                .build();
+        return new Contestant(spec, player -> new MctsAgent(player, config, arenaPool));
+    }
+
+    private static Contestant createAlphaZero(String spec, Map<String, String> settings, SearchBudget budget,
+                                              int numThreads, int nodeBudget, ArenaPool arenaPool) {
+        checkSettings(spec, settings, ALPHAZERO_SETTINGS);
+        String network = settings.get("network");
+        if (network == null) {
+            throw new IllegalArgumentException("AlphaZero contestant without network: " + spec);
+        }
+        AlphaZeroConfig defaults = AlphaZeroConfig.builder().build();
+        AlphaZeroConfig config = AlphaZeroConfig.builder()
+                .network(PolicyValueNet.load(Path.of(network))) // shared by the agents of all games
+                .budget(budget)
+                .numThreads(numThreads)
+                .nodeBudget(nodeBudget)
+                .batchSize(Integer.parseInt(settings.getOrDefault("batch-size",
+                        String.valueOf(defaults.getBatchSize()))))
+                .explorationConstant(Double.parseDouble(settings.getOrDefault("exploration-constant",
+                        String.valueOf(defaults.getExplorationConstant()))))
+                .virtualLoss(Double.parseDouble(settings.getOrDefault("virtual-loss",
+                        String.valueOf(defaults.getVirtualLoss()))))
+                .build();
+        return new Contestant(spec, player -> new AlphaZeroAgent(player, config, arenaPool));
+    }
+
+    private static void checkSettings(String spec, Map<String, String> settings, Set<String> kindSettings) {
+        for (String key : settings.keySet()) {
+            if (!COMMON_SETTINGS.contains(key) && !kindSettings.contains(key)) {
+                throw new IllegalArgumentException("Unknown setting " + key + " in " + spec);
+            }
+        }
+    }
+}
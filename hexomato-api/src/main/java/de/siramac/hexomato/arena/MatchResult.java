@@ -0,0 +1,142 @@
+package de.siramac.hexomato.arena;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * Result of a match between the contestants A and B of an {@link Arena}: the score of A with its Elo
+ * difference and 95% confidence interval, the throughput of both contestants and the peak heap of the match.
+ * The counters are updated by the games running in parallel.
+ */
+@Getter
+public class MatchResult {
+
+    private static final double Z_95 = 1.96;
+
+    private final String nameA;
+    private final String nameB;
+    private final Stats statsA = new Stats();
+    private final Stats statsB = new Stats();
+    private int numGames;
+    private int winsA;
+    private int winsAsPlayer1; // of both contestants, the opening move is the same for both colors
+    private long peakHeapBytes;
+    private long wallNanos;
+
+    public MatchResult(String nameA, String nameB) {
+        this.nameA = nameA;
+        this.nameB = nameB;
+    }
+
+    synchronized void addGame(boolean wonByA, boolean wonByPlayer1) {
+        numGames++;
+        winsA += wonByA ? 1 : 0;
+        winsAsPlayer1 += wonByPlayer1 ? 1 : 0;
+    }
+
+    void finish(long peakHeapBytes, long wallNanos) {
+        this.peakHeapBytes = peakHeapBytes;
+        this.wallNanos = wallNanos;
+    }
+
+    /**
+     * Returns the share of the games won by A, 0.5 without games.
+     */
+    public synchronized double getScore() {
+        return numGames == 0 ? 0.5 : (double) winsA / numGames;
+    }
+
+    /**
+     * Returns the Elo difference of A over B.
+     */
+    public double getElo() {
+        return toElo(getScore());
+    }
+
+    /**
+     * Returns the lower and upper bound of the Elo difference of A over B with 95% confidence, from the
+     * Wilson interval of the score, which stays meaningful if one contestant won every game.
+     */
+    public synchronized double[] getEloInterval() {
+        if (numGames == 0) {
+            return new double[]{Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+        }
+        double score = getScore();
+        double z2n = Z_95 * Z_95 / numGames;
+        double center = (score + z2n / 2) / (1 + z2n);
+        double margin = Z_95 / (1 + z2n) * Math.sqrt(score * (1 - score) / numGames + z2n / (4.0 * numGames));
+        return new double[]{toElo(Math.max(0.0, center - margin)), toElo(Math.min(1.0, center + margin))};
+    }
+
+    /**
+     * Returns the Elo difference which gives the expected score, infinite for a score of 0 or 1.
+     */
+    public static double toElo(double score) {
+        if (score <= 0.0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        if (score >= 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return -400.0 * Math.log10(1.0 / score - 1.0);
+    }
+
+    public synchronized String toReport() {
+        double[] interval = getEloInterval();
+        return String.format(Locale.ROOT, """
+                        A: %s
+                        B: %s
+                        games: %d, wins of A: %d, score: %.3f, Elo: %s [%s, %s], wins of PLAYER_1: %d
+                        A: %s
+                        B: %s
+                        peak heap: %d MB, wall time: %.1f s""",
+                nameA, nameB, numGames, winsA, getScore(), formatElo(getElo()),
+                formatElo(interval[0]), formatElo(interval[1]), winsAsPlayer1,
+                statsA.toReport(), statsB.toReport(), peakHeapBytes >> 20, wallNanos / 1e9);
+    }
+
+    private static String formatElo(double elo) {
+        if (Double.isInfinite(elo)) {
+            return elo > 0 ? "+inf" : "-inf";
+        }
+        return String.format(Locale.ROOT, "%+d", Math.round(elo));
+    }
+
+    /**
+     * Moves of one contestant: their number, thinking time and playouts.
+     */
+    @Getter
+    public static class Stats {
+
+        private long numMoves;
+        private long numPlayouts;
+        private long moveNanos;
+        private long maxMoveNanos;
+
+        synchronized void addMove(long nanos, long playouts) {
+            numMoves++;
+            numPlayouts += playouts;
+            moveNanos += nanos;
+            maxMoveNanos = Math.max(maxMoveNanos, nanos);
+        }
+
+        /**
+         * Returns the playouts per second of thinking time of one game, the games running in parallel share
+         * the cores.
+         */
+        public synchronized double getPlayoutsPerSecond() {
+            return moveNanos == 0 ? 0.0 : numPlayouts / (moveNanos / 1e9);
+        }
+
+        public synchronized double getMeanMoveMillis() {
+            return numMoves == 0 ? 0.0 : moveNanos / 1e6 / numMoves;
+        }
+
+        synchronized String toReport() {
+            return String.format(Locale.ROOT, "moves: %d, playouts per second: %.0f, "
+                            + "time per move: %.1f ms mean, %.1f ms max",
+                    numMoves, getPlayoutsPerSecond(), getMeanMoveMillis(), maxMoveNanos / 1e6);
+        }
+    }
+}
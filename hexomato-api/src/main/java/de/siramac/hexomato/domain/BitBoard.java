@@ -0,0 +1,287 @@
+package de.siramac.hexomato.domain;
+
+import lombok.Getter;
+
+import java.util.SplittableRandom;
+
+import static de.siramac.hexomato.domain.Game.BOARD_SIZE;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+
+/**
+ * Compact position used by the search. The stones of each player are stored in one bitset,
+ * cells are indexed row by row: cell = row * BOARD_SIZE + col.
+ * <p>
+ * A BitBoard is mutable and not thread safe, every search thread works on its own instance.
+ */
+public class BitBoard {
+
+    public static final int NUM_CELLS = BOARD_SIZE * BOARD_SIZE;
+    public static final int NUM_WORDS = (NUM_CELLS + 63) >>> 6;
+    public static final int NO_CELL = -1;
+
+    /**
+     * Neighbour cells of every cell, derived from {@link Node#neighbourMatrix}.
+     */
+    public static final int[][] NEIGHBOURS = createNeighbours();
+
+    // Zobrist keys: one random number per cell and player, fixed seed so hashes are stable
+    private static final long[][] ZOBRIST_KEYS = createZobristKeys();
+    private static final long ZOBRIST_KEY_PLAYER_2_TURN = new SplittableRandom(NUM_CELLS).nextLong();
+
+    private final long[] stonesPlayer1 = new long[NUM_WORDS];
+    private final long[] stonesPlayer2 = new long[NUM_WORDS];
+    @Getter
+    private Player turn;
+    @Getter
+    private Player winner;
+    @Getter
+    private int numStones;
+    @Getter
+    private int lastCell = NO_CELL; // the cell of the last move, NO_CELL if unknown
+    private long stonesHash; // xor of the Zobrist keys of all stones, updated with every stone
+
+    private final DisjointSet connections = new DisjointSet();
+
+    public BitBoard() {
+        this.turn = PLAYER_1;
+    }
+
+    public static int index(int row, int col) {
+        return row * BOARD_SIZE + col;
+    }
+
+    public static int row(int cell) {
+        return cell / BOARD_SIZE;
+    }
+
+    public static int col(int cell) {
+        return cell % BOARD_SIZE;
+    }
+
+    /**
+     * The cell at the same place after rotating the board by 180°. The rotation maps the edges of each
+     * player onto each other, so a position and its rotation are equally good for both players.
+     */
+    public static int rotate(int cell) {
+        return NUM_CELLS - 1 - cell;
+    }
+
+    public void reset(Node[][] board, Player turn, Player winner) {
+        clearStones();
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                Player player = board[row][col].getPlayer();
+                if (player != null) {
+                    setPlayer(index(row, col), player);
+                }
+                if (board[row][col].isLastMove()) {
+                    lastCell = index(row, col);
+                }
+            }
+        }
+        this.turn = turn;
+        this.winner = winner;
+    }
+
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.stonesPlayer1, 0, stonesPlayer1, 0, NUM_WORDS);
+        System.arraycopy(other.stonesPlayer2, 0, stonesPlayer2, 0, NUM_WORDS);
+        connections.copyFrom(other.connections);
+        this.turn = other.turn;
+        this.winner = other.winner;
+        this.numStones = other.numStones;
+        this.lastCell = other.lastCell;
+        this.stonesHash = other.stonesHash;
+    }
+
+    public BitBoard copy() {
+        BitBoard copy = new BitBoard();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Zobrist hash of the position: the stones and the player to move. Positions reached by
+     * different move orders have the same hash.
+     */
+    public long getHash() {
+        return turn == PLAYER_2 ? stonesHash ^ ZOBRIST_KEY_PLAYER_2_TURN : stonesHash;
+    }
+
+    /**
+     * Hash of the position after player plays cell and the turn passes to the opponent,
+     * without making the move.
+     */
+    public long getHashAfterMove(int cell, Player player) {
+        long hash = stonesHash ^ ZOBRIST_KEYS[player.ordinal()][cell];
+        return player == PLAYER_1 ? hash ^ ZOBRIST_KEY_PLAYER_2_TURN : hash;
+    }
+
+    /**
+     * Hash of the position rotated by 180°, see {@link #rotate(int)}.
+     */
+    public long getRotatedHash() {
+        long hash = turn == PLAYER_2 ? ZOBRIST_KEY_PLAYER_2_TURN : 0L;
+        for (int word = 0; word < NUM_WORDS; word++) {
+            for (long bits = stonesPlayer1[word]; bits != 0; bits &= bits - 1) {
+                hash ^= ZOBRIST_KEYS[PLAYER_1.ordinal()][rotate((word << 6) + Long.numberOfTrailingZeros(bits))];
+            }
+            for (long bits = stonesPlayer2[word]; bits != 0; bits &= bits - 1) {
+                hash ^= ZOBRIST_KEYS[PLAYER_2.ordinal()][rotate((word << 6) + Long.numberOfTrailingZeros(bits))];
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * One word of the bitset of the stones of player: bit i is the cell word * 64 + i.
+     */
+    public long getStones(Player player, int word) {
+        return player == PLAYER_1 ? stonesPlayer1[word] : stonesPlayer2[word];
+    }
+
+    public boolean hasSameStones(BitBoard other) {
+        for (int word = 0; word < NUM_WORDS; word++) {
+            if (stonesPlayer1[word] != other.stonesPlayer1[word] || stonesPlayer2[word] != other.stonesPlayer2[word]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Player getPlayer(int cell) {
+        if (isSet(stonesPlayer1, cell)) {
+            return PLAYER_1;
+        }
+        if (isSet(stonesPlayer2, cell)) {
+            return PLAYER_2;
+        }
+        return null;
+    }
+
+    public boolean isEmpty(int cell) {
+        return !isSet(stonesPlayer1, cell) && !isSet(stonesPlayer2, cell);
+    }
+
+    public int getNumActions() {
+        return NUM_CELLS - numStones;
+    }
+
+    /**
+     * Writes all empty cells in ascending order into actions and returns their number.
+     */
+    public int getValidActions(int[] actions) {
+        int numActions = 0;
+        for (int word = 0; word < NUM_WORDS; word++) {
+            long empty = ~(stonesPlayer1[word] | stonesPlayer2[word]);
+            while (empty != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(empty);
+                if (cell >= NUM_CELLS) {
+                    break;
+                }
+                actions[numActions++] = cell;
+                empty &= empty - 1;
+            }
+        }
+        return numActions;
+    }
+
+    public int[] getValidActions() {
+        int[] actions = new int[getNumActions()];
+        getValidActions(actions);
+        return actions;
+    }
+
+    /**
+     * Places a stone without updating turn and winner, used to fill the board in playouts.
+     * The connections of the stone are updated, so {@link #isConnected(Player)} stays valid.
+     */
+    public void setPlayer(int cell, Player player) {
+        long[] stones = player == PLAYER_1 ? stonesPlayer1 : stonesPlayer2;
+        stones[cell >>> 6] |= 1L << cell;
+        numStones++;
+        stonesHash ^= ZOBRIST_KEYS[player.ordinal()][cell];
+
+        connections.addStone(cell, player);
+        for (int neighbour : NEIGHBOURS[cell]) {
+            if (isSet(stones, neighbour)) {
+                connections.union(cell, neighbour);
+            }
+        }
+    }
+
+    public void makeMove(int cell, Player player) {
+        setPlayer(cell, player);
+        lastCell = cell;
+        if (isConnected(player)) {
+            winner = player;
+        } else {
+            turn = player == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+        }
+    }
+
+    /**
+     * Representative of the group of the stone: stones connected to each other share it, stones connected to
+     * an edge of their player share it with the edge node of {@link DisjointSet}.
+     */
+    public int getGroup(int cell) {
+        return connections.find(cell);
+    }
+
+    /**
+     * Checks if the player has connected both of the player's edges, O(α(n)).
+     */
+    public boolean isConnected(Player player) {
+        return connections.isConnected(player);
+    }
+
+    private void clearStones() {
+        for (int word = 0; word < NUM_WORDS; word++) {
+            stonesPlayer1[word] = 0L;
+            stonesPlayer2[word] = 0L;
+        }
+        numStones = 0;
+        lastCell = NO_CELL;
+        stonesHash = 0L;
+        connections.clear();
+    }
+
+    private static boolean isSet(long[] bits, int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private static long[][] createZobristKeys() {
+        SplittableRandom random = new SplittableRandom(BOARD_SIZE);
+        long[][] keys = new long[Player.values().length][NUM_CELLS];
+        for (long[] playerKeys : keys) {
+            for (int cell = 0; cell < NUM_CELLS; cell++) {
+                playerKeys[cell] = random.nextLong();
+            }
+        }
+        return keys;
+    }
+
+    private static int[][] createNeighbours() {
+        int[][] neighbours = new int[NUM_CELLS][];
+        int[] buffer = new int[6];
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                int numNeighbours = 0;
+                for (int i = 0; i < 3; i++) {
+                    int r = row + i - 1;
+                    for (int j = 0; j < 2; j++) {
+                        int c = col + Node.neighbourMatrix[i][j];
+                        if (r >= 0 && r < BOARD_SIZE && c >= 0 && c < BOARD_SIZE) {
+                            buffer[numNeighbours++] = index(r, c);
+                        }
+                    }
+                }
+                int[] cellNeighbours = new int[numNeighbours];
+                System.arraycopy(buffer, 0, cellNeighbours, 0, numNeighbours);
+                neighbours[index(row, col)] = cellNeighbours;
+            }
+        }
+        return neighbours;
+    }
+}
@@ -0,0 +1,92 @@
+package de.siramac.hexomato.domain;
+
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.Game.BOARD_SIZE;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+
+/**
+ * Union-find over the cells of the board (cell = row * BOARD_SIZE + col) and four virtual edge nodes.
+ * Every stone is linked to the edges of its player it touches, so a player has won as soon as
+ * both edges of the player are in the same set:
+ * - PLAYER_1 connects TOP and BOTTOM
+ * - PLAYER_2 connects LEFT and RIGHT
+ */
+public class DisjointSet {
+
+    public static final int TOP = NUM_CELLS;
+    public static final int BOTTOM = NUM_CELLS + 1;
+    public static final int LEFT = NUM_CELLS + 2;
+    public static final int RIGHT = NUM_CELLS + 3;
+    private static final int SIZE = NUM_CELLS + 4;
+
+    private final int[] parent = new int[SIZE];
+    private final byte[] rank = new byte[SIZE];
+
+    public DisjointSet() {
+        clear();
+    }
+
+    public void clear() {
+        for (int element = 0; element < SIZE; element++) {
+            parent[element] = element;
+            rank[element] = 0;
+        }
+    }
+
+    public void copyFrom(DisjointSet other) {
+        System.arraycopy(other.parent, 0, parent, 0, SIZE);
+        System.arraycopy(other.rank, 0, rank, 0, SIZE);
+    }
+
+    /**
+     * Find with path halving.
+     */
+    public int find(int element) {
+        while (parent[element] != element) {
+            parent[element] = parent[parent[element]];
+            element = parent[element];
+        }
+        return element;
+    }
+
+    /**
+     * Union by rank.
+     */
+    public void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (rank[rootA] < rank[rootB]) {
+            parent[rootA] = rootB;
+        } else if (rank[rootA] > rank[rootB]) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootB] = rootA;
+            rank[rootA]++;
+        }
+    }
+
+    public boolean isConnected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    /**
+     * Links a new stone to the edges of its player. The caller unions the stone with its neighbours
+     * of the same player.
+     */
+    public void addStone(int cell, Player player) {
+        int line = player == PLAYER_1 ? BitBoard.row(cell) : BitBoard.col(cell);
+        if (line == 0) {
+            union(cell, player == PLAYER_1 ? TOP : LEFT);
+        }
+        if (line == BOARD_SIZE - 1) {
+            union(cell, player == PLAYER_1 ? BOTTOM : RIGHT);
+        }
+    }
+
+    public boolean isConnected(Player player) {
+        return player == PLAYER_1 ? isConnected(TOP, BOTTOM) : isConnected(LEFT, RIGHT);
+    }
+}
@@ -10,7 +10,6 @@ import static de.siramac.hexomato.domain.Player.PLAYER_2;
 
 @ToString
 @Getter
-@AllArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Game {
 
@@ -29,11 +28,26 @@ public class Game {
     @Setter
     private Player winner;
     private Instant createdOn;
-    @Setter
     private Node[][] board;
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private DisjointSet connections; // built from the board with the first move, see connect()
 
     public static final int BOARD_SIZE = 11;
 
+    public Game(Long id, String namePlayer1, boolean humanPlayer1, String namePlayer2, boolean humanPlayer2,
+                Player turn, Player winner, Instant createdOn, Node[][] board) {
+        this.id = id;
+        this.namePlayer1 = namePlayer1;
+        this.humanPlayer1 = humanPlayer1;
+        this.namePlayer2 = namePlayer2;
+        this.humanPlayer2 = humanPlayer2;
+        this.turn = turn;
+        this.winner = winner;
+        this.createdOn = createdOn;
+        this.board = board;
+    }
+
     public Game(Player player, boolean humanPlayer, String name) {
         if (player == PLAYER_1) {
             namePlayer1 = name;
@@ -71,8 +85,13 @@ public class Game {
         return deepCopyBoard(board);
     }
 
+    public void setBoard(Node[][] board) {
+        this.board = board;
+        this.connections = null;
+    }
+
     public void reset(Node[][] board, Player player, Player winner) {
-        this.board = deepCopyBoard(board);
+        setBoard(deepCopyBoard(board));
         this.turn = player;
         this.winner = winner;
     }
@@ -93,9 +112,14 @@ public class Game {
         makeMoveOnBoard(row, col, player);
     }
 
+    /**
+     * The union-find answers if the move has won the game. The winner path is only searched
+     * once, for the winning move.
+     */
     private void setNewGameState(Node node, Player player) {
-        Set<Node> winnerPath = findWinnerPath(board, node, player);
-        if (!winnerPath.isEmpty()) {
+        connect(node);
+        if (connections.isConnected(player)) {
+            Set<Node> winnerPath = findWinnerPath(board, node, player);
             for (Node winnerNode : winnerPath) {
                 winnerNode.setPartOfWinnerPath(true);
             }
@@ -105,6 +129,32 @@ public class Game {
         }
     }
 
+    private void connect(Node node) {
+        if (connections == null) {
+            // the board was loaded or reset, connect all stones including the new one
+            connections = new DisjointSet();
+            for (Node[] row : board) {
+                for (Node stone : row) {
+                    if (stone.getPlayer() != null) {
+                        addStone(stone);
+                    }
+                }
+            }
+        } else {
+            addStone(node);
+        }
+    }
+
+    private void addStone(Node node) {
+        int cell = BitBoard.index(node.getRow(), node.getCol());
+        connections.addStone(cell, node.getPlayer());
+        for (int neighbour : BitBoard.NEIGHBOURS[cell]) {
+            if (board[BitBoard.row(neighbour)][BitBoard.col(neighbour)].getPlayer() == node.getPlayer()) {
+                connections.union(cell, neighbour);
+            }
+        }
+    }
+
     public Set<Node> findWinnerPath(Node[][] board, Node node, Player player) {
         Set<Node> visited = breadthFirstSearch(board, node);
         boolean containsRowMin = false;
@@ -0,0 +1,634 @@
+package de.siramac.hexomato.pattern;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.siramac.hexomato.domain.BitBoard.NEIGHBOURS;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.BitBoard.NUM_WORDS;
+import static de.siramac.hexomato.domain.Game.BOARD_SIZE;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+
+/**
+ * Local Hex patterns, compiled once for the board size into lookup tables per cell and matched with bit
+ * operations on the stones of a {@link BitBoard}. No bounds are checked and nothing is allocated while
+ * matching, so the tables are shared by all threads, the playouts and the search.
+ * <p>
+ * Save patterns answer an intrusion: the opponent of the owner has just played the trigger cell, the pattern
+ * matches if the owner has the own cells, the opponent the opponent cells and the empty cells are empty, the
+ * response restores the connection of the owner:
+ * - BRIDGE: two own stones with the two common neighbours trigger and response
+ * - EDGE_TEMPLATE: an own stone on the second line of an own edge, trigger and response are the two cells
+ * between the stone and the edge
+ * - LADDER_ESCAPE: both of these cells are taken, the own stone is laddered along the second line. If an own
+ * stone further along the second line can reach the edge, the response pushes the ladder towards it
+ * <p>
+ * Dead cells: the six neighbours of every cell in circular order, an off-board neighbour belongs to the edge
+ * of its player. A stone on a cell is redundant for a player if the neighbours which player may still own
+ * stay connected around the cell however the empty ones are filled. A cell whose stone is redundant for both
+ * players is dead, its colour can't change the winner.
+ * <p>
+ * Inferior cells: {@link #fillIn(BitBoard, long[], long[])} fills the dead cells and the cells captured by a
+ * player, a move there is never better than the best other move. {@link #getInferiorMoves} adds the dominated
+ * cells: a stone of the player to move on an empty neighbour makes the cell dead.
+ */
+public final class PatternTable {
+
+    public enum Kind {
+        BRIDGE,
+        EDGE_TEMPLATE,
+        LADDER_ESCAPE
+    }
+
+    private static final int RING_SIZE = 6;
+    // neighbours in circular order as (row, col) offsets: E, NE, NW, W, SW, SE
+    private static final int[][] RING_OFFSETS = {{0, 1}, {-1, 1}, {-1, 0}, {0, -1}, {1, -1}, {1, 0}};
+    private static final int OFF_BOARD = -1;
+
+    // RING_CELLS[cell * RING_SIZE + i]: i-th neighbour, OFF_BOARD for the edges
+    private static final int[] RING_CELLS = new int[NUM_CELLS * RING_SIZE];
+    // EDGE_RINGS[player][cell]: the ring positions belonging to an edge of the player, 6 bits
+    private static final int[][] EDGE_RINGS = new int[Player.values().length][NUM_CELLS];
+    // REDUNDANT[own << 6 | opponent]: a stone is redundant for its player with these ring positions
+    private static final boolean[] REDUNDANT = new boolean[1 << (2 * RING_SIZE)];
+    // RING_DELTAS[i]: cell offset of the i-th neighbour, RING_VALID[i * NUM_WORDS + word]: cells which have it
+    private static final int[] RING_DELTAS = new int[RING_SIZE];
+    private static final long[] RING_VALID = new long[RING_SIZE * NUM_WORDS];
+    // BRIDGE_CELLS[(cell * RING_SIZE + i) * 3]: the i-th bridge partner of the cell and the two carriers
+    // between them, OFF_BOARD if the partner or a carrier is off the board
+    private static final int[] BRIDGE_CELLS = new int[NUM_CELLS * RING_SIZE * 3];
+    // cells with two off-board neighbours and cells with more, by word
+    private static final long[] BORDER_CELLS = new long[NUM_WORDS];
+    private static final long[] CORNER_CELLS = new long[NUM_WORDS];
+
+    // save patterns by (owner, trigger) in compressed rows: FIRST[owner * NUM_CELLS + trigger] is the first one
+    private static final int[] FIRST = new int[Player.values().length * NUM_CELLS + 1];
+    private static final long[] OWN_MASKS;
+    private static final long[] OPPONENT_MASKS;
+    private static final long[] EMPTY_MASKS;
+    private static final short[] RESPONSES;
+    private static final Kind[] KINDS;
+
+    /**
+     * Maximal number of save patterns matching at once, the size of a response buffer.
+     */
+    public static final int MAX_RESPONSES;
+
+    static {
+        compileRings();
+        compileRedundancy();
+        List<SavePattern> patterns = new ArrayList<>();
+        int maxPatterns = 0;
+        for (Player owner : Player.values()) {
+            for (int trigger = 0; trigger < NUM_CELLS; trigger++) {
+                FIRST[owner.ordinal() * NUM_CELLS + trigger] = patterns.size();
+                int before = patterns.size();
+                compileBridges(trigger, patterns);
+                compileEdgeTemplates(owner, trigger, patterns);
+                compileLadderEscapes(owner, trigger, patterns);
+                maxPatterns = Math.max(maxPatterns, patterns.size() - before);
+            }
+        }
+        FIRST[FIRST.length - 1] = patterns.size();
+        OWN_MASKS = new long[patterns.size() * NUM_WORDS];
+        OPPONENT_MASKS = new long[patterns.size() * NUM_WORDS];
+        EMPTY_MASKS = new long[patterns.size() * NUM_WORDS];
+        RESPONSES = new short[patterns.size()];
+        KINDS = new Kind[patterns.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+            SavePattern pattern = patterns.get(i);
+            System.arraycopy(pattern.own, 0, OWN_MASKS, i * NUM_WORDS, NUM_WORDS);
+            System.arraycopy(pattern.opponent, 0, OPPONENT_MASKS, i * NUM_WORDS, NUM_WORDS);
+            System.arraycopy(pattern.empty, 0, EMPTY_MASKS, i * NUM_WORDS, NUM_WORDS);
+            RESPONSES[i] = (short) pattern.response;
+            KINDS[i] = pattern.kind;
+        }
+        MAX_RESPONSES = maxPatterns;
+    }
+
+    private PatternTable() {
+    }
+
+    /**
+     * Writes the responses of the save patterns of owner matching after the opponent has played trigger into
+     * responses, which must hold MAX_RESPONSES cells, and returns their number. A cell may occur more than once.
+     */
+    public static int getResponses(BitBoard board, int trigger, Player owner, int[] responses) {
+        return getResponses(board, trigger, owner, responses, null);
+    }
+
+    /**
+     * Like {@link #getResponses(BitBoard, int, Player, int[])}, also writes the kind of every pattern into kinds.
+     */
+    public static int getResponses(BitBoard board, int trigger, Player owner, int[] responses, Kind[] kinds) {
+        Player opponent = owner == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+        int row = owner.ordinal() * NUM_CELLS + trigger;
+        int numResponses = 0;
+        for (int pattern = FIRST[row]; pattern < FIRST[row + 1]; pattern++) {
+            if (matches(board, owner, opponent, pattern * NUM_WORDS)) {
+                if (kinds != null) {
+                    kinds[numResponses] = KINDS[pattern];
+                }
+                responses[numResponses++] = RESPONSES[pattern];
+            }
+        }
+        return numResponses;
+    }
+
+    /**
+     * Checks if the empty cell is dead: a stone of either player on it would be redundant.
+     */
+    public static boolean isDead(BitBoard board, int cell) {
+        return isDead(getRing(board, cell, PLAYER_1), getRing(board, cell, PLAYER_2));
+    }
+
+    /**
+     * Checks if a stone of player on the empty cell would be redundant: the neighbours player may still own
+     * are connected around the cell anyway.
+     */
+    public static boolean isRedundant(BitBoard board, int cell, Player player) {
+        Player opponent = player == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+        return REDUNDANT[getRing(board, cell, player) << RING_SIZE | getRing(board, cell, opponent)];
+    }
+
+    /**
+     * Inferior cell analysis: fills the empty cells which can be filled without changing the winner, repeated
+     * until nothing changes, because a filled cell can make its neighbours dead or captured:
+     * - dead cells, filled for the opponent of the player to move
+     * - captured cells: two adjacent empty cells, each dead once the player owns the other. The player answers
+     * an intrusion into one with the other, so both can be filled for the player
+     * A move on a filled cell is inferior: an intrusion of the opponent is answered and leaves a dead stone,
+     * a move of the player fills own territory and is never better than any other move. The cells filled for
+     * the opponent of the player to move are the moves to prune, own captured cells may still win at once.
+     * Writes the filled cells of each player into player1Cells and player2Cells, NUM_WORDS each, and returns
+     * their number.
+     */
+    public static int fillIn(BitBoard board, long[] player1Cells, long[] player2Cells) {
+        int numFilled = fill(board, player1Cells, player2Cells);
+        for (int word = 0; word < NUM_WORDS; word++) {
+            player1Cells[word] &= ~board.getStones(PLAYER_1, word);
+            player2Cells[word] &= ~board.getStones(PLAYER_2, word);
+        }
+        return numFilled;
+    }
+
+    /**
+     * The moves which the player to move may skip: the cells {@link #fillIn} fills for the opponent and the
+     * dominated cells. An empty cell is dominated by an empty neighbour if a stone of the player on the neighbour
+     * makes the cell dead: the player on the neighbour is as good as on both cells, the cell being dead, and
+     * that is never worse than on the cell alone. The dominating neighbour is never skipped itself, so one cell
+     * of every chain of dominations is kept. The analysis runs on the board with the filled cells.
+     * Writes the moves into inferiorMoves and returns their number, player1Cells and player2Cells are working
+     * memory, NUM_WORDS each.
+     */
+    public static int getInferiorMoves(BitBoard board, long[] player1Cells, long[] player2Cells,
+                                       long[] inferiorMoves) {
+        fill(board, player1Cells, player2Cells);
+        Player player = board.getTurn();
+        Player opponent = player == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+        long[] opponentCells = player == PLAYER_1 ? player2Cells : player1Cells;
+        int numInferior = 0;
+        for (int word = 0; word < NUM_WORDS; word++) {
+            inferiorMoves[word] = opponentCells[word] & ~board.getStones(opponent, word);
+            numInferior += Long.bitCount(inferiorMoves[word]);
+        }
+        for (int word = 0; word < NUM_WORDS; word++) {
+            long empty = ~(player1Cells[word] | player2Cells[word]);
+            if (word == NUM_WORDS - 1) {
+                empty &= -1L >>> (NUM_WORDS * Long.SIZE - NUM_CELLS);
+            }
+            for (; empty != 0; empty &= empty - 1) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(empty);
+                if (isDominated(player1Cells, player2Cells, inferiorMoves, cell, player)) {
+                    set(inferiorMoves, cell);
+                    numInferior++;
+                }
+            }
+        }
+        return numInferior;
+    }
+
+    /**
+     * Checks if an empty neighbour which is not skipped yet dominates the empty cell for player.
+     */
+    private static boolean isDominated(long[] player1Cells, long[] player2Cells, long[] inferiorMoves, int cell,
+                                       Player player) {
+        int ring1 = getRing(player1Cells, cell, PLAYER_1);
+        int ring2 = getRing(player2Cells, cell, PLAYER_2);
+        for (int i = 0; i < RING_SIZE; i++) {
+            int neighbour = RING_CELLS[cell * RING_SIZE + i];
+            if (neighbour == OFF_BOARD || isSet(player1Cells, neighbour) || isSet(player2Cells, neighbour)
+                    || isSet(inferiorMoves, neighbour)) {
+                continue;
+            }
+            if (player == PLAYER_1 ? isDead(ring1 | 1 << i, ring2) : isDead(ring1, ring2 | 1 << i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The loop of {@link #fillIn}, the arrays keep the stones of the board.
+     */
+    private static int fill(BitBoard board, long[] player1Cells, long[] player2Cells) {
+        // while filling, the arrays hold the stones of the board as well
+        for (int word = 0; word < NUM_WORDS; word++) {
+            player1Cells[word] = board.getStones(PLAYER_1, word);
+            player2Cells[word] = board.getStones(PLAYER_2, word);
+        }
+        long[] deadCells = board.getTurn() == PLAYER_1 ? player2Cells : player1Cells;
+        int numFilled = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int word = 0; word < NUM_WORDS; word++) {
+                for (long candidates = getCandidates(player1Cells, player2Cells, word); candidates != 0;
+                     candidates &= candidates - 1) {
+                    int cell = (word << 6) + Long.numberOfTrailingZeros(candidates);
+                    if (isSet(player1Cells, cell) || isSet(player2Cells, cell)) {
+                        continue; // filled as part of a captured pair
+                    }
+                    int ring1 = getRing(player1Cells, cell, PLAYER_1);
+                    int ring2 = getRing(player2Cells, cell, PLAYER_2);
+                    if (isDead(ring1, ring2)) {
+                        set(deadCells, cell);
+                        numFilled++;
+                        changed = true;
+                    } else if (fillCapturedPair(player1Cells, player2Cells, cell, ring1, ring2)) {
+                        numFilled += 2;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return numFilled;
+    }
+
+    /**
+     * The empty cells of the word which may be dead or captured, found with bit operations on all cells at once.
+     * A dead cell has at least four ring positions owned by a player or an edge, a captured cell three besides
+     * its partner, and an edge of a player is never enough with fewer than one stone. So only cells with at least
+     * three neighbouring stones, border cells with at least one and the corners are candidates.
+     */
+    private static long getCandidates(long[] player1Cells, long[] player2Cells, int word) {
+        long atLeastOne = 0L;
+        long atLeastTwo = 0L;
+        long atLeastThree = 0L;
+        for (int i = 0; i < RING_SIZE; i++) {
+            long neighbours = getShifted(player1Cells, player2Cells, word, RING_DELTAS[i])
+                    & RING_VALID[i * NUM_WORDS + word];
+            atLeastThree |= atLeastTwo & neighbours;
+            atLeastTwo |= atLeastOne & neighbours;
+            atLeastOne |= neighbours;
+        }
+        long empty = ~(player1Cells[word] | player2Cells[word]);
+        if (word == NUM_WORDS - 1) {
+            empty &= -1L >>> (NUM_WORDS * Long.SIZE - NUM_CELLS);
+        }
+        return empty & (atLeastThree | atLeastOne & BORDER_CELLS[word] | CORNER_CELLS[word]);
+    }
+
+    /**
+     * The word of the occupied cells shifted by delta cells: bit c is set if cell c + delta is occupied.
+     */
+    private static long getShifted(long[] player1Cells, long[] player2Cells, int word, int delta) {
+        long bits = player1Cells[word] | player2Cells[word];
+        if (delta > 0) {
+            long next = word + 1 < NUM_WORDS ? player1Cells[word + 1] | player2Cells[word + 1] : 0L;
+            return bits >>> delta | next << (Long.SIZE - delta);
+        }
+        long previous = word > 0 ? player1Cells[word - 1] | player2Cells[word - 1] : 0L;
+        return bits << -delta | previous >>> (Long.SIZE + delta);
+    }
+
+    /**
+     * Fills the cell and an empty neighbour for the player who captures them. Only the first half of the ring
+     * is checked, the other half is checked from the neighbours.
+     */
+    private static boolean fillCapturedPair(long[] player1Cells, long[] player2Cells, int cell, int ring1, int ring2) {
+        for (int i = 0; i < RING_SIZE / 2; i++) {
+            int neighbour = RING_CELLS[cell * RING_SIZE + i];
+            if (neighbour == OFF_BOARD || isSet(player1Cells, neighbour) || isSet(player2Cells, neighbour)) {
+                continue;
+            }
+            int opposite = i + RING_SIZE / 2; // the cell as neighbour of the neighbour
+            int neighbourRing1 = getRing(player1Cells, neighbour, PLAYER_1);
+            int neighbourRing2 = getRing(player2Cells, neighbour, PLAYER_2);
+            long[] captured = null;
+            if (isDead(ring1 | 1 << i, ring2) && isDead(neighbourRing1 | 1 << opposite, neighbourRing2)) {
+                captured = player1Cells;
+            } else if (isDead(ring1, ring2 | 1 << i) && isDead(neighbourRing1, neighbourRing2 | 1 << opposite)) {
+                captured = player2Cells;
+            }
+            if (captured != null) {
+                set(captured, cell);
+                set(captured, neighbour);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDead(int ring1, int ring2) {
+        return REDUNDANT[ring1 << RING_SIZE | ring2] && REDUNDANT[ring2 << RING_SIZE | ring1];
+    }
+
+    private static boolean isSet(long[] cells, int cell) {
+        return (cells[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private static void set(long[] cells, int cell) {
+        cells[cell >>> 6] |= 1L << cell;
+    }
+
+    /**
+     * Checks if a stone of player on the empty cell forms a bridge with a stone of player: both cells between
+     * them are empty.
+     */
+    public static boolean isBridge(BitBoard board, int cell, Player player) {
+        for (int i = cell * RING_SIZE * 3; i < (cell + 1) * RING_SIZE * 3; i += 3) {
+            if (BRIDGE_CELLS[i] != OFF_BOARD && board.getPlayer(BRIDGE_CELLS[i]) == player
+                    && board.isEmpty(BRIDGE_CELLS[i + 1]) && board.isEmpty(BRIDGE_CELLS[i + 2])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(BitBoard board, Player owner, Player opponent, int offset) {
+        for (int word = 0; word < NUM_WORDS; word++) {
+            long own = board.getStones(owner, word);
+            long opponentStones = board.getStones(opponent, word);
+            if ((own & OWN_MASKS[offset + word]) != OWN_MASKS[offset + word]
+                    || (opponentStones & OPPONENT_MASKS[offset + word]) != OPPONENT_MASKS[offset + word]
+                    || ((own | opponentStones) & EMPTY_MASKS[offset + word]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The ring positions owned by player: the stones and the edges of player, 6 bits.
+     */
+    private static int getRing(long[] stones, int cell, Player player) {
+        int ring = EDGE_RINGS[player.ordinal()][cell];
+        int offset = cell * RING_SIZE;
+        for (int i = 0; i < RING_SIZE; i++) {
+            int neighbour = RING_CELLS[offset + i];
+            if (neighbour != OFF_BOARD && isSet(stones, neighbour)) {
+                ring |= 1 << i;
+            }
+        }
+        return ring;
+    }
+
+    private static int getRing(BitBoard board, int cell, Player player) {
+        int ring = EDGE_RINGS[player.ordinal()][cell];
+        int offset = cell * RING_SIZE;
+        for (int i = 0; i < RING_SIZE; i++) {
+            int neighbour = RING_CELLS[offset + i];
+            if (neighbour != OFF_BOARD && (board.getStones(player, neighbour >>> 6) & (1L << neighbour)) != 0) {
+                ring |= 1 << i;
+            }
+        }
+        return ring;
+    }
+
+    private static void compileRings() {
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            int offBoard = 0;
+            for (int i = 0; i < RING_SIZE; i++) {
+                int row = BitBoard.row(cell) + RING_OFFSETS[i][0];
+                int col = BitBoard.col(cell) + RING_OFFSETS[i][1];
+                boolean rowOff = row < 0 || row >= BOARD_SIZE;
+                boolean colOff = col < 0 || col >= BOARD_SIZE;
+                RING_CELLS[cell * RING_SIZE + i] = rowOff || colOff ? OFF_BOARD : BitBoard.index(row, col);
+                RING_DELTAS[i] = RING_OFFSETS[i][0] * BOARD_SIZE + RING_OFFSETS[i][1];
+                if (!rowOff && !colOff) {
+                    RING_VALID[i * NUM_WORDS + (cell >>> 6)] |= 1L << cell;
+                }
+                offBoard += rowOff || colOff ? 1 : 0;
+                // PLAYER_1 connects the first and the last row, PLAYER_2 the first and the last column,
+                // a neighbour beyond a corner belongs to no edge
+                if (rowOff && !colOff) {
+                    EDGE_RINGS[PLAYER_1.ordinal()][cell] |= 1 << i;
+                } else if (colOff && !rowOff) {
+                    EDGE_RINGS[PLAYER_2.ordinal()][cell] |= 1 << i;
+                }
+            }
+            if (offBoard > 0) {
+                long[] cells = offBoard == 2 ? BORDER_CELLS : CORNER_CELLS;
+                cells[cell >>> 6] |= 1L << cell;
+            }
+        }
+        // the partner of two neighbouring ring positions is their common neighbour besides the cell
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            for (int i = 0; i < RING_SIZE; i++) {
+                int next = (i + 1) % RING_SIZE;
+                int row = BitBoard.row(cell) + RING_OFFSETS[i][0] + RING_OFFSETS[next][0];
+                int col = BitBoard.col(cell) + RING_OFFSETS[i][1] + RING_OFFSETS[next][1];
+                int first = RING_CELLS[cell * RING_SIZE + i];
+                int second = RING_CELLS[cell * RING_SIZE + next];
+                boolean onBoard = row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE
+                        && first != OFF_BOARD && second != OFF_BOARD;
+                int offset = (cell * RING_SIZE + i) * 3;
+                BRIDGE_CELLS[offset] = onBoard ? BitBoard.index(row, col) : OFF_BOARD;
+                BRIDGE_CELLS[offset + 1] = first;
+                BRIDGE_CELLS[offset + 2] = second;
+            }
+        }
+    }
+
+    /**
+     * A stone is redundant if every two ring positions which its player may still own (own or empty) are
+     * joined along the ring by own positions only: the empty ones may be taken by the opponent.
+     */
+    private static void compileRedundancy() {
+        for (int own = 0; own < 1 << RING_SIZE; own++) {
+            for (int opponent = 0; opponent < 1 << RING_SIZE; opponent++) {
+                if ((own & opponent) != 0) {
+                    continue;
+                }
+                boolean redundant = true;
+                for (int u = 0; u < RING_SIZE && redundant; u++) {
+                    for (int v = u + 1; v < RING_SIZE && redundant; v++) {
+                        if ((opponent & (1 << u | 1 << v)) == 0) {
+                            redundant = isJoined(own, u, v, 1) || isJoined(own, u, v, -1);
+                        }
+                    }
+                }
+                REDUNDANT[own << RING_SIZE | opponent] = redundant;
+            }
+        }
+    }
+
+    private static boolean isJoined(int own, int from, int to, int direction) {
+        for (int i = Math.floorMod(from + direction, RING_SIZE); i != to; i = Math.floorMod(i + direction, RING_SIZE)) {
+            if ((own & (1 << i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Two neighbours of the trigger which are not adjacent but share a second common neighbour form a bridge.
+     */
+    private static void compileBridges(int trigger, List<SavePattern> patterns) {
+        int[] neighbours = NEIGHBOURS[trigger];
+        for (int i = 0; i < neighbours.length; i++) {
+            for (int j = i + 1; j < neighbours.length; j++) {
+                int first = neighbours[i];
+                int second = neighbours[j];
+                if (isAdjacent(first, second)) {
+                    continue;
+                }
+                for (int carrier : NEIGHBOURS[first]) {
+                    if (carrier != trigger && isAdjacent(carrier, second)) {
+                        patterns.add(new SavePattern(Kind.BRIDGE, carrier)
+                                .own(first).own(second).empty(carrier));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void compileEdgeTemplates(Player owner, int trigger, List<SavePattern> patterns) {
+        for (Edge edge : Edge.of(owner)) {
+            if (edge.distance(trigger) != 0) {
+                continue;
+            }
+            for (int stone : NEIGHBOURS[trigger]) {
+                int carrier = edge.distance(stone) == 1 ? edge.otherCarrier(stone, trigger) : OFF_BOARD;
+                if (carrier != OFF_BOARD) {
+                    patterns.add(new SavePattern(Kind.EDGE_TEMPLATE, carrier).own(stone).empty(carrier));
+                }
+            }
+        }
+    }
+
+    /**
+     * The laddered stone is pushed one cell along the second line towards an escape stone on the second line,
+     * the cells of the ladder between them and their cells on the edge line must be empty.
+     */
+    private static void compileLadderEscapes(Player owner, int trigger, List<SavePattern> patterns) {
+        for (Edge edge : Edge.of(owner)) {
+            if (edge.distance(trigger) != 0) {
+                continue;
+            }
+            for (int stone : NEIGHBOURS[trigger]) {
+                int blocked = edge.distance(stone) == 1 ? edge.otherCarrier(stone, trigger) : OFF_BOARD;
+                if (blocked == OFF_BOARD) {
+                    continue;
+                }
+                for (int direction = -1; direction <= 1; direction += 2) {
+                    int push = edge.along(stone, direction);
+                    List<Integer> ladder = new ArrayList<>();
+                    for (int escape = edge.along(push, direction); escape != OFF_BOARD;
+                         escape = edge.along(escape, direction)) {
+                        ladder.add(edge.along(escape, -direction));
+                        SavePattern pattern = new SavePattern(Kind.LADDER_ESCAPE, push)
+                                .own(stone).own(escape).opponent(blocked);
+                        for (int cell : ladder) {
+                            pattern.empty(cell);
+                            addEdgeCarriers(edge, cell, trigger, blocked, pattern);
+                        }
+                        addEdgeCarriers(edge, escape, trigger, blocked, pattern);
+                        patterns.add(pattern);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addEdgeCarriers(Edge edge, int cell, int trigger, int blocked, SavePattern pattern) {
+        for (int neighbour : NEIGHBOURS[cell]) {
+            if (edge.distance(neighbour) == 0 && neighbour != trigger && neighbour != blocked) {
+                pattern.empty(neighbour);
+            }
+        }
+    }
+
+    private static boolean isAdjacent(int cell, int other) {
+        for (int neighbour : NEIGHBOURS[cell]) {
+            if (neighbour == other) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One of the four edges: the first or last row of PLAYER_1, the first or last column of PLAYER_2.
+     */
+    private record Edge(boolean rows, boolean last) {
+
+        static Edge[] of(Player player) {
+            boolean rows = player == PLAYER_1;
+            return new Edge[]{new Edge(rows, false), new Edge(rows, true)};
+        }
+
+        int distance(int cell) {
+            int line = rows ? BitBoard.row(cell) : BitBoard.col(cell);
+            return last ? BOARD_SIZE - 1 - line : line;
+        }
+
+        /**
+         * The next cell on the same line parallel to the edge, OFF_BOARD at the end of the line.
+         */
+        int along(int cell, int direction) {
+            if (cell == OFF_BOARD) {
+                return OFF_BOARD;
+            }
+            int row = BitBoard.row(cell) + (rows ? 0 : direction);
+            int col = BitBoard.col(cell) + (rows ? direction : 0);
+            return row < 0 || row >= BOARD_SIZE || col < 0 || col >= BOARD_SIZE ? OFF_BOARD : BitBoard.index(row, col);
+        }
+
+        /**
+         * The second cell of the edge line adjacent to stone besides carrier, OFF_BOARD in a corner.
+         */
+        int otherCarrier(int stone, int carrier) {
+            for (int neighbour : NEIGHBOURS[stone]) {
+                if (neighbour != carrier && distance(neighbour) == 0) {
+                    return neighbour;
+                }
+            }
+            return OFF_BOARD;
+        }
+    }
+
+    private static class SavePattern {
+        private final Kind kind;
+        private final int response;
+        private final long[] own = new long[NUM_WORDS];
+        private final long[] opponent = new long[NUM_WORDS];
+        private final long[] empty = new long[NUM_WORDS];
+
+        private SavePattern(Kind kind, int response) {
+            this.kind = kind;
+            this.response = response;
+        }
+
+        private SavePattern own(int cell) {
+            own[cell >>> 6] |= 1L << cell;
+            return this;
+        }
+
+        private SavePattern opponent(int cell) {
+            opponent[cell >>> 6] |= 1L << cell;
+            return this;
+        }
+
+        private SavePattern empty(int cell) {
+            empty[cell >>> 6] |= 1L << cell;
+            return this;
+        }
+    }
+}
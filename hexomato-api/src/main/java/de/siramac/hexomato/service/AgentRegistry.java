@@ -0,0 +1,197 @@
+package de.siramac.hexomato.service;
+
+import de.siramac.hexomato.agent.Agent;
+import de.siramac.hexomato.agent.alphazero.AlphaZeroAgent;
+import de.siramac.hexomato.agent.alphazero.AlphaZeroConfig;
+import de.siramac.hexomato.agent.alphazero.PolicyValueNet;
+import de.siramac.hexomato.agent.mcts.ArenaPool;
+import de.siramac.hexomato.agent.mcts.MctsAgent;
+import de.siramac.hexomato.agent.mcts.MctsConfig;
+import de.siramac.hexomato.agent.mcts.OpeningBook;
+import de.siramac.hexomato.agent.mcts.TreeArena;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.domain.Player;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+
+/**
+ * One agent per AI game, created with the first AI move of the game. An agent keeps its search tree
+ * between the moves of its game, so the number of agents is bounded:
+ * - an agent not used for idleTimeoutMillis is closed
+ * - a new agent beyond maxAgents closes the least recently used one, by default maxAgents is the number of
+ * agents whose trees fit in half of the heap
+ * An agent which is searching a move is never closed, while all are searching maxAgents may be exceeded.
+ * The trees of closed agents are kept in a pool for the next agents. All agents share the opening book.
+ * A seat with a network is played by an {@link AlphaZeroAgent}, its network is loaded once and shared by
+ * the agents of the seat. The statistics of every search are published by {@link SearchMetrics}.
+ */
+@Slf4j
+@Component
+public class AgentRegistry {
+
+    private static final int POOLED_AGENTS = 8; // number of agents whose trees are kept in the pool
+
+    private final AiProperties aiProperties;
+    private final SearchMetrics searchMetrics;
+    private final int maxAgents;
+    private final ArenaPool arenaPool;
+    private final OpeningBook openingBook; // null if there is none
+    private final Map<Long, Entry> agents = new ConcurrentHashMap<>();
+    private final Map<String, Optional<PolicyValueNet>> networks = new ConcurrentHashMap<>(); // by file
+
+    public AgentRegistry(AiProperties aiProperties, SearchMetrics searchMetrics) {
+        this.aiProperties = aiProperties;
+        this.searchMetrics = searchMetrics;
+        long agentBytes = TreeArena.getBytes(aiProperties.getNodeBudget(), false,
+                MctsConfig.DEFAULT.isPruneInferiorCells()); // the trees of one agent
+        this.maxAgents = aiProperties.getMaxAgents() > 0
+                ? aiProperties.getMaxAgents()
+                : (int) Math.max(1, Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 2 / agentBytes));
+        this.arenaPool = new ArenaPool(POOLED_AGENTS * agentBytes);
+        log.info("At most {} agents with {} MB of trees each", maxAgents, agentBytes >> 20);
+        this.openingBook = loadOpeningBook(aiProperties.getOpeningBook());
+    }
+
+    /**
+     * Returns the agent of the game for the player to move, it is created if the game has none.
+     */
+    public Agent getAgent(Game game) {
+        Entry entry = agents.get(game.getId());
+        if (entry == null) {
+            evictLeastRecentlyUsed(maxAgents - 1);
+            entry = agents.computeIfAbsent(game.getId(), id -> new Entry(createAgent(game)));
+        }
+        entry.lastUsed = System.currentTimeMillis();
+        return entry.agent;
+    }
+
+    /**
+     * Returns the agent of the game or null if the game has none.
+     */
+    public Agent findAgent(Long gameId) {
+        Entry entry = agents.get(gameId);
+        return entry != null ? entry.agent : null;
+    }
+
+    public void remove(Long gameId) {
+        Entry entry = agents.remove(gameId);
+        if (entry != null) {
+            entry.agent.close();
+        }
+    }
+
+    public int size() {
+        return agents.size();
+    }
+
+    public int getMaxAgents() {
+        return maxAgents;
+    }
+
+    @Scheduled(fixedDelayString = "${hexomato.ai.eviction-interval-millis:60000}")
+    public void evictIdleAgents() {
+        long idleSince = System.currentTimeMillis() - aiProperties.getIdleTimeoutMillis();
+        agents.forEach((gameId, entry) -> {
+            if (entry.lastUsed < idleSince && !entry.agent.isSearching()) {
+                log.info("Closing idle agent of game {}", gameId);
+                remove(gameId);
+            }
+        });
+    }
+
+    private void evictLeastRecentlyUsed(int maxAgents) {
+        while (agents.size() > maxAgents) {
+            Optional<Map.Entry<Long, Entry>> leastRecentlyUsed = agents.entrySet().stream()
+                    .filter(gameIdAndEntry -> !gameIdAndEntry.getValue().agent.isSearching())
+                    .min(Comparator.comparingLong(gameIdAndEntry -> gameIdAndEntry.getValue().lastUsed));
+            if (leastRecentlyUsed.isEmpty()) {
+                log.warn("All {} agents are searching, none is closed", agents.size());
+                return;
+            }
+            log.info("Closing least recently used agent of game {}", leastRecentlyUsed.get().getKey());
+            remove(leastRecentlyUsed.get().getKey());
+        }
+    }
+
+    private Agent createAgent(Game game) {
+        Player player = game.getTurn();
+        String name = player == PLAYER_1 ? game.getNamePlayer1() : game.getNamePlayer2();
+        int numThreads = Math.max(1, Runtime.getRuntime().availableProcessors()
+                / Math.max(1, aiProperties.getSearchSlots()));
+        AiProperties.Seat seat = aiProperties.getSeat(name);
+        PolicyValueNet network = seat != null ? getNetwork(seat.getNetwork()) : null;
+        if (network != null) {
+            AlphaZeroConfig config = AlphaZeroConfig.builder()
+                    .network(network)
+                    .budget(seat.toBudget())
+                    .batchSize(seat.getBatchSize())
+                    .numThreads(numThreads * seat.getBatchSize()) // numThreads batches at the same time
+                    .nodeBudget(aiProperties.getNodeBudget())
+                    .searchListener(stats -> searchMetrics.record(name, stats))
+                    .build();
+            log.info("Creating AlphaZero agent {} for game {}", name, game.getId());
+            return new AlphaZeroAgent(player, config, arenaPool);
+        }
+        MctsConfig config = MctsConfig.builder()
+                .budget(aiProperties.getBudget(name))
+                .numThreads(numThreads)
+                .nodeBudget(aiProperties.getNodeBudget())
+                .ponder(aiProperties.isPonder())
+                .ponderTimeMillis(aiProperties.getPonderTimeMillis())
+                .openingBook(openingBook)
+                .searchListener(stats -> searchMetrics.record(name, stats))
+                .build();
+        log.info("Creating agent {} for game {}", name, game.getId());
+        return new MctsAgent(player, config, arenaPool);
+    }
+
+    /**
+     * Returns the network of the file, null if no file is set or it is missing, then the seat is played by
+     * an {@link MctsAgent}.
+     */
+    private PolicyValueNet getNetwork(String file) {
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+        return networks.computeIfAbsent(file, key -> {
+            Path path = Path.of(key);
+            if (!Files.isReadable(path)) {
+                log.warn("Network {} not found, the seat is played by Monte-Carlo search", path.toAbsolutePath());
+                return Optional.empty();
+            }
+            return Optional.of(PolicyValueNet.load(path));
+        }).orElse(null);
+    }
+
+    private static OpeningBook loadOpeningBook(String file) {
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+        Path path = Path.of(file);
+        if (!Files.isReadable(path)) {
+            log.warn("Opening book {} not found, the agents search every move", path.toAbsolutePath());
+            return null;
+        }
+        return OpeningBook.open(path);
+    }
+
+    private static class Entry {
+        private final Agent agent;
+        private volatile long lastUsed;
+
+        private Entry(Agent agent) {
+            this.agent = agent;
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.siramac.hexomato.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the AI moves of all games on a fixed number of search slots, apart from the blocking calls on
+ * boundedElastic, so many games wanting a move at once do not overload the cores:
+ * - fairness: waiting moves are taken round robin by game, a game searches at most one move at a time
+ * - admission: at most maxQueuedMoves moves wait, further moves are rejected
+ * - deadline: a move is answered within maxLatencyMillis after the request, the search gets the remaining time
+ * - backpressure: while moves wait, the budgets shrink to slots / (slots + waiting moves), at least minBudgetFactor
+ * The queue depth, the waiting time and the time in a slot are published as metrics, the searches themselves by
+ * {@link SearchMetrics}.
+ */
+@Slf4j
+@Component
+public class AiMoveExecutor {
+
+    /**
+     * Searches one move with the budget factor and the deadline assigned by the executor.
+     */
+    @FunctionalInterface
+    public interface MoveTask<T> {
+        T run(double budgetFactor, long deadlineMillis);
+    }
+
+    private final AiProperties aiProperties;
+    private final int numSlots;
+    private final ExecutorService slots;
+    private final Map<Long, Deque<Request<?>>> queues = new LinkedHashMap<>(); // waiting moves by game, round robin
+    private final Set<Long> searchingGames = new HashSet<>();
+    private int numQueued;
+
+    private final Timer waitTimer;
+    private final Timer slotTimer;
+    private final Counter rejectedCounter;
+
+    public AiMoveExecutor(AiProperties aiProperties, MeterRegistry meterRegistry) {
+        this.aiProperties = aiProperties;
+        this.numSlots = Math.max(1, aiProperties.getSearchSlots());
+        this.slots = Executors.newFixedThreadPool(numSlots, Thread.ofPlatform().name("ai-search-", 0).daemon().factory());
+        Gauge.builder("hexomato.ai.queue.depth", this, AiMoveExecutor::getNumQueued)
+                .description("AI moves waiting for a search slot")
+                .register(meterRegistry);
+        Gauge.builder("hexomato.ai.slots.active", this, AiMoveExecutor::getNumSearching)
+                .description("Search slots in use")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("hexomato.ai.queue.wait")
+                .description("Time an AI move waited for a search slot")
+                .register(meterRegistry);
+        this.slotTimer = Timer.builder("hexomato.ai.slot.time")
+                .description("Time an AI move occupied a search slot")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("hexomato.ai.rejected")
+                .description("AI moves rejected because too many were waiting")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the move of the game, the future fails with a {@link RejectedExecutionException} if too many
+     * moves are waiting.
+     */
+    public <T> CompletableFuture<T> submit(Long gameId, MoveTask<T> task) {
+        Request<T> request = new Request<>(gameId, task, System.nanoTime(),
+                System.currentTimeMillis() + aiProperties.getMaxLatencyMillis());
+        synchronized (this) {
+            if (numQueued >= aiProperties.getMaxQueuedMoves()) {
+                rejectedCounter.increment();
+                log.warn("Rejected AI move of game {}, {} moves are waiting", gameId, numQueued);
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Too many AI moves waiting"));
+            }
+            queues.computeIfAbsent(gameId, id -> new ArrayDeque<>()).add(request);
+            numQueued++;
+        }
+        slots.execute(this::runWaitingMoves);
+        return request.future;
+    }
+
+    public synchronized int getNumQueued() {
+        return numQueued;
+    }
+
+    public synchronized int getNumSearching() {
+        return searchingGames.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        slots.shutdownNow();
+        slots.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs on a slot until no move can be taken, a move of a game which is searched already is left
+     * to the slot of that game.
+     */
+    private void runWaitingMoves() {
+        Request<?> request;
+        while ((request = takeNext()) != null) {
+            try {
+                run(request);
+            } finally {
+                synchronized (this) {
+                    searchingGames.remove(request.gameId);
+                    Deque<Request<?>> queue = queues.remove(request.gameId);
+                    if (queue != null) {
+                        queues.put(request.gameId, queue); // the games which waited meanwhile come first
+                    }
+                }
+            }
+        }
+    }
+
+    private synchronized Request<?> takeNext() {
+        Iterator<Map.Entry<Long, Deque<Request<?>>>> iterator = queues.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Deque<Request<?>>> gameIdAndQueue = iterator.next();
+            if (searchingGames.contains(gameIdAndQueue.getKey())) {
+                continue;
+            }
+            Deque<Request<?>> queue = gameIdAndQueue.getValue();
+            Request<?> request = queue.poll();
+            iterator.remove();
+            if (!queue.isEmpty()) {
+                queues.put(gameIdAndQueue.getKey(), queue); // the other games come first
+            }
+            numQueued--;
+            searchingGames.add(request.gameId);
+            request.budgetFactor = Math.max(aiProperties.getMinBudgetFactor(),
+                    Math.min(1.0, (double) numSlots / (numSlots + numQueued)));
+            return request;
+        }
+        return null;
+    }
+
+    private <T> void run(Request<T> request) {
+        waitTimer.record(System.nanoTime() - request.submittedNanos, TimeUnit.NANOSECONDS);
+        if (request.budgetFactor < 1.0) {
+            log.info("Searching move of game {} with budget factor {}", request.gameId, request.budgetFactor);
+        }
+        try {
+            T result = slotTimer.recordCallable(() -> request.task.run(request.budgetFactor, request.deadlineMillis));
+            request.future.complete(result);
+        } catch (Exception e) {
+            log.error("AI move of game {} failed", request.gameId, e);
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    private static class Request<T> {
+        private final Long gameId;
+        private final MoveTask<T> task;
+        private final long submittedNanos;
+        private final long deadlineMillis;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private double budgetFactor = 1.0;
+
+        private Request(Long gameId, MoveTask<T> task, long submittedNanos, long deadlineMillis) {
+            this.gameId = gameId;
+            this.task = task;
+            this.submittedNanos = submittedNanos;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
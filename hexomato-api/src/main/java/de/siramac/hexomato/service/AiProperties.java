@@ -0,0 +1,112 @@
+package de.siramac.hexomato.service;
+
+import de.siramac.hexomato.agent.mcts.SearchBudget;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of the AI seats, keyed by the name of the seat, e.g.
+ * hexomato.ai.seats[Monte-Carlo].time-millis=2000
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "hexomato.ai")
+public class AiProperties {
+
+    private Map<String, Seat> seats = new HashMap<>();
+
+    /**
+     * Let the AI search during the turn of the human player.
+     */
+    private boolean ponder;
+
+    private long ponderTimeMillis = 60_000;
+
+    /**
+     * Maximal number of agents, each keeps the search tree of its game. 0 allows as many agents as the trees of
+     * which fit in half of the heap.
+     */
+    private int maxAgents;
+
+    /**
+     * An agent not used for this time is closed.
+     */
+    private long idleTimeoutMillis = 15 * 60_000;
+
+    /**
+     * Maximal number of tree nodes of one agent, see {@link de.siramac.hexomato.agent.mcts.MctsConfig}.
+     */
+    private int nodeBudget = 1 << 18;
+
+    /**
+     * File of the opening book, see {@link de.siramac.hexomato.agent.mcts.OpeningBookGenerator}, empty for none.
+     */
+    private String openingBook = "";
+
+    /**
+     * Number of AI moves searched at the same time, see {@link AiMoveExecutor}. Each search gets an equal share
+     * of the cores.
+     */
+    private int searchSlots = 2;
+
+    /**
+     * Maximal number of AI moves waiting for a slot, further moves are rejected.
+     */
+    private int maxQueuedMoves = 64;
+
+    /**
+     * An AI move is answered within this time after the request, waiting time included.
+     */
+    private long maxLatencyMillis = 10_000;
+
+    /**
+     * Lower bound of the budget factor applied while moves are waiting.
+     */
+    private double minBudgetFactor = 0.1;
+
+    /**
+     * Returns the search budget of the seat, the default budget for a seat without settings.
+     */
+    public SearchBudget getBudget(String name) {
+        Seat seat = seats.get(name);
+        return seat != null ? seat.toBudget() : SearchBudget.DEFAULT;
+    }
+
+    /**
+     * Returns the settings of the seat, null for a seat without settings.
+     */
+    public Seat getSeat(String name) {
+        return seats.get(name);
+    }
+
+    /**
+     * Search budget of one seat, 0 means unlimited, see {@link SearchBudget}. A seat with a network file is
+     * played by an {@link de.siramac.hexomato.agent.alphazero.AlphaZeroAgent}, which evaluates up to batchSize
+     * positions per forward pass.
+     */
+    @Getter
+    @Setter
+    public static class Seat {
+        private long timeMillis = SearchBudget.DEFAULT.getTimeMillis();
+        private long playouts;
+        private int nodes;
+        private boolean earlyStop = true;
+        private String network = "";
+        private int batchSize = 8;
+
+        public SearchBudget toBudget() {
+            return SearchBudget.builder()
+                    .timeMillis(timeMillis)
+                    .playouts(playouts)
+                    .nodes(nodes)
+                    .earlyStop(earlyStop)
+                    .build();
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package de.siramac.hexomato.service;
 
 import de.siramac.hexomato.agent.Agent;
-import de.siramac.hexomato.agent.mcts.MctsAgent;
 import de.siramac.hexomato.domain.Game;
 import de.siramac.hexomato.domain.GameRepository;
 import de.siramac.hexomato.domain.Node;
@@ -25,13 +24,9 @@ import static de.siramac.hexomato.domain.Player.PLAYER_2;
 public class GameService {
 
     private final GameRepository gameRepository;
-    private Agent agent;
+    private final AgentRegistry agentRegistry;
 
     public Game createGame(Player player, boolean humanPlayer, String name) {
-        if (!humanPlayer) {
-            agent = new MctsAgent(player, new Game(player, false, name));
-        }
-
         Game game = new Game(player, humanPlayer, name);
         game = gameRepository.saveGame(game);
         return game;
@@ -99,9 +94,22 @@ public class GameService {
 
         game.makeFinalMoveOnBoard(node.getRow(), node.getCol(), player);
         game = gameRepository.saveGame(game);
+        if (game.getWinner() != null) {
+            agentRegistry.remove(gameId);
+        }
         return game;
     }
 
+    /**
+     * Stops the background search of the AI of the game, e.g. when the human player has left.
+     */
+    public void stopPondering(Long gameId) {
+        Agent agent = agentRegistry.findAgent(gameId);
+        if (agent != null) {
+            agent.stopPondering();
+        }
+    }
+
     public void deleteOlderGames() {
         gameRepository.deleteOlderGames();
     }
@@ -127,8 +135,19 @@ public class GameService {
     }
 
     public Game makeAiMove(Game game) {
-        Node node = agent.getMove(game);
+        return makeAiMove(game, 1.0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Makes the move of the AI, see {@link Agent#getMove(Game, double, long)} for the budget factor and the deadline.
+     */
+    public Game makeAiMove(Game game, double budgetFactor, long deadlineMillis) {
+        Agent agent = agentRegistry.getAgent(game);
+        Node node = agent.getMove(game, budgetFactor, deadlineMillis);
         game = makeMove(game.getId(), node.getRow(), node.getCol(), game.getTurn());
+        if (game != null) {
+            agent.ponder(game);
+        }
         return game;
     }
 }
@@ -0,0 +1,92 @@
+package de.siramac.hexomato.service;
+
+import de.siramac.hexomato.agent.SearchStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the {@link SearchStats} of every AI search as metrics tagged with the seat of the agent, see
+ * /actuator/metrics/hexomato.ai.search.playouts?tag=seat:Monte-Carlo:
+ * - hexomato.ai.search.playouts: counter of the playouts, hexomato.ai.search.playout.rate: playouts per second
+ * - hexomato.ai.search.duration: wall time of a search
+ * - hexomato.ai.search.tree.nodes, hexomato.ai.search.depth.max, hexomato.ai.search.depth.mean
+ * - hexomato.ai.search.root.entropy: entropy of the visits of the root actions
+ * - hexomato.ai.search.win.rate: mean value of the played action
+ * - hexomato.ai.search.allocated: heap allocated by the search threads
+ * The summaries keep count, total and max of every metric.
+ */
+@Component
+public class SearchMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, SeatMeters> meters = new ConcurrentHashMap<>(); // by seat
+
+    public SearchMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String seat, SearchStats stats) {
+        SeatMeters seatMeters = meters.computeIfAbsent(seat != null ? seat : "unknown", SeatMeters::new);
+        seatMeters.playouts.increment(stats.getPlayouts());
+        seatMeters.playoutRate.record(stats.getPlayoutsPerSecond());
+        seatMeters.duration.record(stats.getWallNanos(), TimeUnit.NANOSECONDS);
+        seatMeters.treeNodes.record(stats.getTreeNodes());
+        seatMeters.maxDepth.record(stats.getMaxDepth());
+        seatMeters.meanDepth.record(stats.getAverageDepth());
+        seatMeters.rootEntropy.record(stats.getRootEntropy());
+        seatMeters.winRate.record(stats.getBestMoveWinRate());
+        seatMeters.allocated.record(stats.getAllocatedBytes());
+    }
+
+    private class SeatMeters {
+
+        private final Counter playouts;
+        private final DistributionSummary playoutRate;
+        private final Timer duration;
+        private final DistributionSummary treeNodes;
+        private final DistributionSummary maxDepth;
+        private final DistributionSummary meanDepth;
+        private final DistributionSummary rootEntropy;
+        private final DistributionSummary winRate;
+        private final DistributionSummary allocated;
+
+        private SeatMeters(String seat) {
+            Tags tags = Tags.of("seat", seat);
+            playouts = Counter.builder("hexomato.ai.search.playouts")
+                    .description("Playouts of the AI searches")
+                    .tags(tags)
+                    .register(meterRegistry);
+            playoutRate = summary("hexomato.ai.search.playout.rate", "Playouts per second of a search",
+                    "playouts/s", tags);
+            duration = Timer.builder("hexomato.ai.search.duration")
+                    .description("Wall time of a search")
+                    .tags(tags)
+                    .register(meterRegistry);
+            treeNodes = summary("hexomato.ai.search.tree.nodes", "Nodes of the trees after a search", "nodes", tags);
+            maxDepth = summary("hexomato.ai.search.depth.max", "Deepest leaf of a search", "actions", tags);
+            meanDepth = summary("hexomato.ai.search.depth.mean", "Mean depth of the leaves of a search", "actions",
+                    tags);
+            rootEntropy = summary("hexomato.ai.search.root.entropy", "Entropy of the visits of the root actions",
+                    "nats", tags);
+            winRate = summary("hexomato.ai.search.win.rate", "Mean value of the played action", null, tags);
+            allocated = summary("hexomato.ai.search.allocated", "Heap allocated by the threads of a search",
+                    "bytes", tags);
+        }
+
+        private DistributionSummary summary(String name, String description, String baseUnit, Tags tags) {
+            return DistributionSummary.builder(name)
+                    .description(description)
+                    .baseUnit(baseUnit)
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+    }
+}
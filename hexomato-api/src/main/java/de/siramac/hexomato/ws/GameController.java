@@ -2,6 +2,7 @@ package de.siramac.hexomato.ws;
 
 import de.siramac.hexomato.domain.Game;
 import de.siramac.hexomato.domain.Player;
+import de.siramac.hexomato.service.AiMoveExecutor;
 import de.siramac.hexomato.service.GameService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -25,9 +26,11 @@ public class GameController {
 
     private final Map<Long, Sinks.Many<ServerSentEvent<GameWs>>> gameIdToSinkMap = new ConcurrentHashMap<>();
     private final GameService gameService;
+    private final AiMoveExecutor aiMoveExecutor;
 
-    public GameController(GameService gameService) {
+    public GameController(GameService gameService, AiMoveExecutor aiMoveExecutor) {
         this.gameService = gameService;
+        this.aiMoveExecutor = aiMoveExecutor;
     }
 
     @GetMapping(value = "/register/sse/gameId/{gameId}/namePlayer/{namePlayer}", produces = "text/event-stream")
@@ -42,6 +45,9 @@ public class GameController {
                 })
                 .doOnCancel(() -> {
                     log.info("{} disconnected", namePlayer);
+                    Mono.fromRunnable(() -> gameService.stopPondering(gameId))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .subscribe();
                     loadAndSendGame(gameId, namePlayer + " has left the game");
                 });
     }
@@ -69,9 +75,11 @@ public class GameController {
 
     private void sendGame(Game game, String connectionMessage) {
         if (gameService.isAiTurn(game)) {
-            Mono.fromCallable(() -> gameService.makeAiMove(game))
-                    .subscribeOn(Schedulers.boundedElastic())
+            Mono.fromFuture(() -> aiMoveExecutor.submit(game.getId(),
+                            (budgetFactor, deadlineMillis) -> gameService.makeAiMove(game, budgetFactor, deadlineMillis)))
                     .doOnNext(nextGame -> triggerSse(nextGame, connectionMessage))
+                    .doOnError(e -> log.warn("No AI move for game {}: {}", game.getId(), e.getMessage()))
+                    .onErrorComplete()
                     .subscribe();
         } else {
             triggerSse(game, connectionMessage);
@@ -0,0 +1,91 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.agent.Agent;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.domain.Node;
+import de.siramac.hexomato.service.AgentRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import static de.siramac.hexomato.domain.Game.BOARD_SIZE;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "hexomato.ai.max-agents=2")
+public class AgentRegistryTest {
+
+    @Autowired
+    private AgentRegistry agentRegistry;
+
+    @Test
+    void getAgentTest() {
+        // Arrange
+        Game first = createAiGame(101L);
+        Game second = createAiGame(102L);
+        Game third = createAiGame(103L);
+
+        // Act
+        Agent firstAgent = agentRegistry.getAgent(first);
+        Agent firstAgentAgain = agentRegistry.getAgent(first);
+        Agent secondAgent = agentRegistry.getAgent(second);
+        agentRegistry.getAgent(third);
+
+        // Assert: the third agent closes the least recently used first agent
+        assertThat(firstAgentAgain).isSameAs(firstAgent);
+        assertThat(secondAgent).isNotSameAs(firstAgent);
+        assertThat(agentRegistry.findAgent(first.getId())).isNull();
+        assertThat(agentRegistry.findAgent(second.getId())).isSameAs(secondAgent);
+        assertThat(agentRegistry.size()).isEqualTo(2);
+
+        agentRegistry.remove(second.getId());
+        agentRegistry.remove(third.getId());
+        assertThat(agentRegistry.size()).isZero();
+    }
+
+    @Test
+    void searchingAgentTest() {
+        // Arrange: the agent of the first game searches its move for the time of its seat
+        Game first = createAiGame(201L);
+        Game second = createAiGame(202L);
+        Game third = createAiGame(203L);
+        Agent firstAgent = agentRegistry.getAgent(first);
+        CompletableFuture<Node> firstMove = CompletableFuture.supplyAsync(() -> firstAgent.getMove(first));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!firstAgent.isSearching() && !firstMove.isDone()) {
+            assertThat(System.currentTimeMillis()).as("search started").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+        Agent secondAgent = agentRegistry.getAgent(second);
+
+        // Act
+        boolean searching = firstAgent.isSearching();
+        Agent thirdAgent = agentRegistry.getAgent(third);
+
+        // Assert: the least recently used agent is searching, so the second one is closed instead
+        assertThat(searching).isTrue();
+        assertThat(agentRegistry.findAgent(first.getId())).isSameAs(firstAgent);
+        assertThat(agentRegistry.findAgent(second.getId())).isNull();
+        assertThat(agentRegistry.findAgent(third.getId())).isSameAs(thirdAgent).isNotSameAs(secondAgent);
+        assertThat(firstMove.join().getPlayer()).isNull();
+        assertThat(firstAgent.isSearching()).isFalse();
+
+        agentRegistry.remove(first.getId());
+        agentRegistry.remove(third.getId());
+        assertThat(agentRegistry.size()).isZero();
+    }
+
+    private static Game createAiGame(Long id) {
+        Node[][] board = new Node[BOARD_SIZE][BOARD_SIZE];
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                board[row][col] = new Node(row, col);
+            }
+        }
+        return new Game(id, "Human", true, "Monte-Carlo", false, PLAYER_2, null, Instant.now(), board);
+    }
+}
@@ -0,0 +1,78 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.service.AiMoveExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "hexomato.ai.search-slots=1",
+        "hexomato.ai.max-queued-moves=3"
+})
+public class AiMoveExecutorTest {
+
+    @Autowired
+    private AiMoveExecutor aiMoveExecutor;
+
+    @Test
+    void submitTest() throws Exception {
+        // Arrange: the only slot is blocked by a move of game 1
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Double> blocking = aiMoveExecutor.submit(1L, (budgetFactor, deadlineMillis) -> {
+            started.countDown();
+            await(release);
+            return budgetFactor;
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Act
+        CompletableFuture<Double> secondOfGame1 = aiMoveExecutor.submit(1L, (budgetFactor, deadlineMillis) -> {
+            order.add("game 1");
+            return budgetFactor;
+        });
+        CompletableFuture<Double> secondOfGame1Again = aiMoveExecutor.submit(1L, (budgetFactor, deadlineMillis) -> {
+            order.add("game 1 again");
+            return budgetFactor;
+        });
+        CompletableFuture<Double> firstOfGame2 = aiMoveExecutor.submit(2L, (budgetFactor, deadlineMillis) -> {
+            order.add("game 2");
+            return budgetFactor;
+        });
+        CompletableFuture<Double> rejected = aiMoveExecutor.submit(3L, (budgetFactor, deadlineMillis) -> 1.0);
+        int numQueued = aiMoveExecutor.getNumQueued();
+        release.countDown();
+        CompletableFuture.allOf(blocking, secondOfGame1, secondOfGame1Again, firstOfGame2).get(5, TimeUnit.SECONDS);
+
+        // Assert: the games take turns, the budgets shrink while moves wait
+        assertThat(numQueued).isEqualTo(3);
+        assertThatThrownBy(rejected::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(order).containsExactly("game 2", "game 1", "game 1 again");
+        assertThat(blocking.get()).isEqualTo(1.0);
+        assertThat(firstOfGame2.get()).isEqualTo(1.0 / 3);
+        assertThat(secondOfGame1Again.get()).isEqualTo(1.0);
+        assertThat(aiMoveExecutor.getNumQueued()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
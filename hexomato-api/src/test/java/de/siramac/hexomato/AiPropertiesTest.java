@@ -0,0 +1,33 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.agent.mcts.SearchBudget;
+import de.siramac.hexomato.service.AiProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "hexomato.ai.seats[αMax].playouts=10000",
+        "hexomato.ai.seats[αMax].early-stop=false"
+})
+public class AiPropertiesTest {
+
+    @Autowired
+    private AiProperties aiProperties;
+
+    @Test
+    void seatBudgetTest() {
+        // Act
+        SearchBudget alphaMax = aiProperties.getBudget("αMax");
+        SearchBudget monteCarlo = aiProperties.getBudget("Monte-Carlo");
+        SearchBudget unknown = aiProperties.getBudget("Unknown");
+
+        // Assert
+        assertThat(alphaMax.getPlayouts()).isEqualTo(10_000);
+        assertThat(alphaMax.isEarlyStop()).isFalse();
+        assertThat(monteCarlo.getTimeMillis()).isEqualTo(2_000);
+        assertThat(unknown.getTimeMillis()).isEqualTo(SearchBudget.DEFAULT.getTimeMillis());
+    }
+}
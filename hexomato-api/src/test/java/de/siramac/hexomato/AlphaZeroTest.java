@@ -0,0 +1,85 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.agent.alphazero.AlphaZeroAgent;
+import de.siramac.hexomato.agent.alphazero.AlphaZeroConfig;
+import de.siramac.hexomato.agent.alphazero.PolicyValueNet;
+import de.siramac.hexomato.agent.mcts.SearchBudget;
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.domain.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Path;
+
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class AlphaZeroTest {
+
+    @Test
+    void networkTest(@TempDir Path directory) {
+        // Arrange: a saved and loaded network, the empty board with either player to move
+        PolicyValueNet net = PolicyValueNet.createRandom(8, 2, 16, 42);
+        net.save(directory.resolve("net.bin"));
+        PolicyValueNet loaded = PolicyValueNet.load(directory.resolve("net.bin"));
+        BitBoard board = new BitBoard();
+        board.makeMove(BitBoard.index(3, 7), PLAYER_1);
+        BitBoard emptyPlayer2 = new BitBoard();
+        emptyPlayer2.reset(new Game(PLAYER_2, false, "Test").getBoard(), PLAYER_2, null);
+
+        // Act: one batch of three positions, then every position alone
+        float[] batchLogits = new float[3 * NUM_CELLS];
+        float[] batchValues = new float[3];
+        evaluate(loaded, batchLogits, batchValues, new BitBoard(), board, emptyPlayer2);
+        float[] logits = new float[NUM_CELLS];
+        float[] values = new float[1];
+        evaluate(net, logits, values, board);
+
+        // Assert: the batch doesn't change the results, PLAYER_2 sees the empty board like PLAYER_1
+        assertThat(loaded.getNumChannels()).isEqualTo(8);
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            assertThat(batchLogits[NUM_CELLS + cell]).isEqualTo(logits[cell]);
+            assertThat(batchLogits[2 * NUM_CELLS + cell]).isEqualTo(batchLogits[cell]);
+        }
+        assertThat(batchValues[1]).isEqualTo(values[0]);
+        assertThat(batchValues[2]).isEqualTo(batchValues[0]);
+        assertThat(batchValues[0]).isBetween(-1f, 1f);
+    }
+
+    @Test
+    void alphaZeroAgentTest() {
+        // Arrange
+        Game game = new Game(PLAYER_1, false, "TestAlphaZero");
+        game.makeMoveOnBoard(4, 4, PLAYER_1);
+        AlphaZeroAgent agent = new AlphaZeroAgent(PLAYER_2, AlphaZeroConfig.builder()
+                .network(PolicyValueNet.createRandom(8, 1, 16, 7))
+                .numThreads(4)
+                .batchSize(4)
+                .budget(SearchBudget.builder().timeMillis(0).playouts(200).earlyStop(false).build())
+                .build());
+
+        // Act
+        Node aiMove = agent.getMove(game);
+
+        // Assert: the leaves of the threads are evaluated together
+        assertThat(aiMove).isNotNull();
+        assertThat(aiMove.getPlayer()).isNull();
+        assertThat(agent.getEvaluator().getNumEvaluations()).isGreaterThan(agent.getEvaluator().getNumBatches());
+        agent.close();
+    }
+
+    private static void evaluate(PolicyValueNet net, float[] logits, float[] values, BitBoard... positions) {
+        PolicyValueNet.Workspace workspace = new PolicyValueNet.Workspace(net, positions.length);
+        float[] planes = new float[PolicyValueNet.INPUT_SIZE];
+        for (int i = 0; i < positions.length; i++) {
+            PolicyValueNet.encode(positions[i], planes, 0);
+            workspace.setInput(i, planes);
+        }
+        net.evaluate(workspace, positions.length, logits, values);
+    }
+}
@@ -0,0 +1,64 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.agent.mcts.ArenaPool;
+import de.siramac.hexomato.arena.Arena;
+import de.siramac.hexomato.arena.Contestant;
+import de.siramac.hexomato.arena.MatchResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+public class ArenaTest {
+
+    @Test
+    void matchTest() {
+        // Arrange
+        ArenaPool arenaPool = new ArenaPool(64L << 20);
+        Contestant contestantA = Contestant.parse("mcts:playouts=50", arenaPool);
+        Contestant contestantB = Contestant.parse("mcts:playouts=50,prune-inferior-cells=false", arenaPool);
+
+        // Act: three games are rounded up to two pairs
+        MatchResult result = new Arena(contestantA, contestantB, 2, 42).play(3);
+
+        // Assert: even a sweep bounds the Elo difference on one side
+        double[] interval = result.getEloInterval();
+        assertThat(result.getNumGames()).isEqualTo(4);
+        assertThat(interval[0]).isLessThan(interval[1]);
+        assertThat(Double.isFinite(interval[0]) || Double.isFinite(interval[1])).isTrue();
+        assertThat(result.getWinsA()).isBetween(0, 4);
+        assertThat(result.getStatsA().getNumMoves()).isPositive();
+        assertThat(result.getStatsA().getNumPlayouts()).isGreaterThanOrEqualTo(result.getStatsA().getNumMoves());
+        assertThat(result.getStatsB().getPlayoutsPerSecond()).isPositive();
+        assertThat(result.getPeakHeapBytes()).isPositive();
+        assertThat(result.toReport()).contains("mcts:playouts=50,prune-inferior-cells=false");
+        assertThatThrownBy(() -> Contestant.parse("random", arenaPool)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Contestant.parse("mcts:prune-inferior-cell=false", arenaPool))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("prune-inferior-cell");
+        assertThatThrownBy(() -> Contestant.parse("alphazero:network=net.bin,rave-equivalence=100", arenaPool))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("rave-equivalence");
+    }
+
+    @Test
+    void eloTest() {
+        // Arrange
+        MatchResult empty = new MatchResult("A", "B");
+
+        // Act
+        double elo = MatchResult.toElo(0.75);
+        double[] emptyInterval = empty.getEloInterval();
+
+        // Assert: 3:1 odds are 191 Elo, a match without games says nothing
+        assertThat(elo).isCloseTo(190.8, within(0.1));
+        assertThat(MatchResult.toElo(0.5)).isZero();
+        assertThat(MatchResult.toElo(0.25)).isCloseTo(-elo, within(1e-9));
+        assertThat(MatchResult.toElo(1.0)).isInfinite();
+        assertThat(emptyInterval[0]).isInfinite();
+        assertThat(emptyInterval[1]).isInfinite();
+    }
+}
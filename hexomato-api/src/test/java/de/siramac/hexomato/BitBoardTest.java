@@ -0,0 +1,150 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Game;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static de.siramac.hexomato.domain.Game.BOARD_SIZE;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class BitBoardTest {
+
+    @Test
+    void resetTest() {
+        // Arrange
+        Game game = new Game(PLAYER_1, true, "Test Player");
+        game.makeFinalMoveOnBoard(4, 4, PLAYER_1);
+        game.makeFinalMoveOnBoard(5, 6, PLAYER_2);
+        BitBoard board = new BitBoard();
+
+        // Act
+        board.reset(game.getBoard(), game.getTurn(), game.getWinner());
+
+        // Assert
+        assertThat(board.getPlayer(BitBoard.index(4, 4))).isEqualTo(PLAYER_1);
+        assertThat(board.getPlayer(BitBoard.index(5, 6))).isEqualTo(PLAYER_2);
+        assertThat(board.isEmpty(BitBoard.index(5, 5))).isTrue();
+        assertThat(board.getTurn()).isEqualTo(PLAYER_1);
+        assertThat(board.getNumActions()).isEqualTo(game.getNumActions());
+        assertThat(board.getValidActions()).hasSize(game.getValidActions().length);
+        assertThat(board.getLastCell()).isEqualTo(BitBoard.index(5, 6));
+    }
+
+    @Test
+    void makeMoveTest() {
+        // Arrange
+        BitBoard board = new BitBoard();
+
+        // Act: PLAYER_1 fills column 3 from the first to the last row
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            assertThat(board.getWinner()).isNull();
+            board.makeMove(BitBoard.index(row, 3), PLAYER_1);
+            if (row < BOARD_SIZE - 1) {
+                board.makeMove(BitBoard.index(row, 7), PLAYER_2);
+            }
+        }
+
+        // Assert
+        assertThat(board.getWinner()).isEqualTo(PLAYER_1);
+        assertThat(board.isConnected(PLAYER_1)).isTrue();
+        assertThat(board.isConnected(PLAYER_2)).isFalse();
+    }
+
+    @Test
+    void copyTest() {
+        // Arrange
+        BitBoard board = new BitBoard();
+        board.makeMove(BitBoard.index(2, 2), PLAYER_1);
+
+        // Act
+        BitBoard copy = board.copy();
+        copy.makeMove(BitBoard.index(3, 3), PLAYER_2);
+
+        // Assert
+        assertThat(board.isEmpty(BitBoard.index(3, 3))).isTrue();
+        assertThat(board.getTurn()).isEqualTo(PLAYER_2);
+        assertThat(copy.getPlayer(BitBoard.index(2, 2))).isEqualTo(PLAYER_1);
+        assertThat(copy.getTurn()).isEqualTo(PLAYER_1);
+    }
+
+    @Test
+    void rotatedHashTest() {
+        // Arrange
+        BitBoard board = new BitBoard();
+        board.makeMove(BitBoard.index(1, 2), PLAYER_1);
+        board.makeMove(BitBoard.index(7, 3), PLAYER_2);
+        board.makeMove(BitBoard.index(5, 5), PLAYER_1);
+        BitBoard rotated = new BitBoard();
+        rotated.makeMove(BitBoard.rotate(BitBoard.index(1, 2)), PLAYER_1);
+        rotated.makeMove(BitBoard.rotate(BitBoard.index(7, 3)), PLAYER_2);
+        rotated.makeMove(BitBoard.rotate(BitBoard.index(5, 5)), PLAYER_1);
+
+        // Act
+        long rotatedHash = board.getRotatedHash();
+
+        // Assert: the rotation keeps the neighbours, so it is a symmetry of the board
+        assertThat(rotatedHash).isEqualTo(rotated.getHash());
+        assertThat(rotated.getRotatedHash()).isEqualTo(board.getHash());
+        assertThat(BitBoard.rotate(BitBoard.index(0, 0))).isEqualTo(BitBoard.index(BOARD_SIZE - 1, BOARD_SIZE - 1));
+        for (int cell = 0; cell < BitBoard.NUM_CELLS; cell++) {
+            for (int neighbour : BitBoard.NEIGHBOURS[cell]) {
+                assertThat(BitBoard.NEIGHBOURS[BitBoard.rotate(cell)]).contains(BitBoard.rotate(neighbour));
+            }
+        }
+    }
+
+    @Test
+    void transpositionHashTest() {
+        // Arrange: the same stones in two move orders
+        int[] cells = {BitBoard.index(1, 2), BitBoard.index(7, 3), BitBoard.index(5, 5), BitBoard.index(6, 1)};
+        BitBoard board = new BitBoard();
+        BitBoard transposed = new BitBoard();
+
+        // Act
+        board.makeMove(cells[0], PLAYER_1);
+        board.makeMove(cells[1], PLAYER_2);
+        board.makeMove(cells[2], PLAYER_1);
+        board.makeMove(cells[3], PLAYER_2);
+        transposed.makeMove(cells[2], PLAYER_1);
+        transposed.makeMove(cells[3], PLAYER_2);
+        transposed.makeMove(cells[0], PLAYER_1);
+        transposed.makeMove(cells[1], PLAYER_2);
+
+        // Assert: the hash depends on the stones and the turn, not on the order
+        assertThat(transposed.getHash()).isEqualTo(board.getHash());
+        assertThat(board.getHashAfterMove(BitBoard.index(0, 0), PLAYER_1))
+                .isEqualTo(transposed.getHashAfterMove(BitBoard.index(0, 0), PLAYER_1))
+                .isNotEqualTo(board.getHashAfterMove(BitBoard.index(0, 0), PLAYER_2))
+                .isNotEqualTo(board.getHash());
+    }
+
+    @Test
+    void incrementalHashTest() {
+        // Arrange
+        Game game = new Game(PLAYER_1, true, "Test Player");
+        BitBoard board = new BitBoard();
+        BitBoard recomputed = new BitBoard();
+        BitBoard copy = new BitBoard();
+        copy.makeMove(BitBoard.index(10, 10), PLAYER_1);
+
+        for (int i = 0; i < 20; i++) {
+            // Act: the board is updated by its moves, reset places every stone of the game again
+            int row = (i * 7) % BOARD_SIZE;
+            int col = (i * 3 + i / BOARD_SIZE) % BOARD_SIZE;
+            board.makeMove(BitBoard.index(row, col), board.getTurn());
+            game.makeMoveOnBoard(row, col, game.getTurn());
+            recomputed.reset(game.getBoard(), board.getTurn(), null);
+            copy.copyFrom(board);
+
+            // Assert
+            assertThat(board.getHash()).isEqualTo(recomputed.getHash());
+            assertThat(copy.getHash()).isEqualTo(recomputed.getHash());
+        }
+        copy.makeMove(BitBoard.index(10, 10), copy.getTurn());
+        assertThat(copy.getHash()).isEqualTo(board.getHashAfterMove(BitBoard.index(10, 10), board.getTurn()));
+    }
+}
@@ -74,4 +74,27 @@ public class GameTest {
         assertThat(game.getWinner()).isEqualTo(null);
         assertThat(game.getBoard()[5][5].getPlayer()).isNull();
     }
+
+    @Test
+    void makeFinalMoveOnBoardWinnerTest() {
+        // Arrange: PLAYER_2 connects the left and the right edge in row 6, PLAYER_1 plays in row 0
+        Game winnerGame = new Game(PLAYER_1, true, "Test Player");
+        for (int col = 0; col < BOARD_SIZE - 1; col++) {
+            winnerGame.makeFinalMoveOnBoard(0, col, PLAYER_1);
+            winnerGame.makeFinalMoveOnBoard(6, col, PLAYER_2);
+            assertThat(winnerGame.getWinner()).isNull();
+        }
+        winnerGame.makeFinalMoveOnBoard(1, 0, PLAYER_1);
+
+        // Act
+        winnerGame.makeFinalMoveOnBoard(6, BOARD_SIZE - 1, PLAYER_2);
+
+        // Assert
+        assertThat(winnerGame.getWinner()).isEqualTo(PLAYER_2);
+        assertThat(winnerGame.getTurn()).isEqualTo(PLAYER_2);
+        for (int col = 0; col < BOARD_SIZE; col++) {
+            assertThat(winnerGame.getBoard()[6][col].isPartOfWinnerPath()).isTrue();
+            assertThat(winnerGame.getBoard()[0][col].isPartOfWinnerPath()).isFalse();
+        }
+    }
 }
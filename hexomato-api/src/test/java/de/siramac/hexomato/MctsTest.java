@@ -1,14 +1,25 @@
 package de.siramac.hexomato;
 
 import de.siramac.hexomato.agent.Agent;
+import de.siramac.hexomato.agent.PonderScheduler;
 import de.siramac.hexomato.agent.mcts.MctsAgent;
+import de.siramac.hexomato.agent.mcts.MctsConfig;
+import de.siramac.hexomato.agent.mcts.SearchBudget;
+import de.siramac.hexomato.agent.mcts.TreeArena;
+import de.siramac.hexomato.domain.BitBoard;
 import de.siramac.hexomato.domain.Game;
 import de.siramac.hexomato.domain.Node;
 import de.siramac.hexomato.domain.Player;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.Arrays;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.NONE;
+import static de.siramac.hexomato.agent.mcts.TreeArena.ROOT;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
 import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
@@ -17,7 +28,7 @@ public class MctsTest {
     @Test
     void mctsTest() {
         Game game = new Game(Player.PLAYER_1, false, "TestMcts");
-        Agent agent = new MctsAgent(Player.PLAYER_2, new Game(Player.PLAYER_2, false, "TestMcts"));
+        Agent agent = new MctsAgent(Player.PLAYER_2);
         int row = 4;
         int col = 4;
         Node node = game.getBoard()[row][col];
@@ -27,4 +38,305 @@ public class MctsTest {
         assertThat(aiMove).isNotNull();
         assertThat(aiMove.getClass()).isEqualTo(Node.class);
     }
+
+    @Test
+    void rootParallelMctsTest() {
+        // Arrange
+        Game game = new Game(Player.PLAYER_1, false, "TestMcts");
+        MctsAgent agent = new MctsAgent(Player.PLAYER_2, MctsConfig.builder()
+                .numThreads(4)
+                .budget(SearchBudget.builder().timeMillis(0).playouts(2_000).earlyStop(false).build())
+                .build());
+        game.makeMoveOnBoard(4, 4, PLAYER_1);
+
+        // Act
+        Node aiMove = agent.getMove(game);
+
+        // Assert: every worker searched its own tree, the root statistics are their sum
+        TreeArena[] trees = agent.getTrees();
+        double[] mergedVisits = agent.getRootVisits();
+        double[] visitsPerTree = new double[NUM_CELLS];
+        float rootVisits = 0f;
+        for (TreeArena tree : trees) {
+            tree.addChildVisits(ROOT, visitsPerTree);
+            rootVisits += tree.getVisits(ROOT);
+        }
+        assertThat(aiMove.getPlayer()).isNull();
+        assertThat(trees).hasSize(4);
+        assertThat(mergedVisits).containsExactly(visitsPerTree);
+        assertThat(Arrays.stream(mergedVisits).sum()).isEqualTo(2_000);
+        assertThat(rootVisits).isEqualTo(2_000);
+        assertThat(agent.getNumPlayouts()).isEqualTo(2_000);
+    }
+
+    @Test
+    void treeParallelMctsTest() {
+        // Arrange: a virtual loss which is not a whole visit, so a leftover shows as a fraction
+        Game game = new Game(Player.PLAYER_1, false, "TestMcts");
+        MctsAgent agent = new MctsAgent(Player.PLAYER_2, MctsConfig.builder()
+                .numThreads(4)
+                .parallelization(MctsConfig.Parallelization.TREE)
+                .virtualLoss(0.25)
+                .budget(SearchBudget.builder().timeMillis(0).playouts(2_000).earlyStop(false).build())
+                .build());
+        game.makeMoveOnBoard(4, 4, PLAYER_1);
+
+        // Act
+        Node aiMove = agent.getMove(game);
+
+        // Assert: the virtual loss of every selection was taken back, every playout was counted once
+        TreeArena[] trees = agent.getTrees();
+        assertThat(aiMove.getPlayer()).isNull();
+        assertThat(trees).hasSize(1);
+        TreeArena tree = trees[0];
+        for (int node = 0; node < tree.getSize(); node++) {
+            float visits = tree.getVisits(node);
+            double childVisits = 0.0;
+            for (int child = tree.getFirstChild(node); child != NONE; child = tree.getNextSibling(child)) {
+                childVisits += tree.getVisits(child);
+            }
+            assertThat(visits).isEqualTo((float) Math.rint(visits));
+            assertThat(childVisits).isLessThanOrEqualTo(visits);
+        }
+        assertThat(tree.getVisits(ROOT)).isEqualTo(2_000);
+        assertThat(agent.getNumPlayouts()).isEqualTo(2_000);
+    }
+
+    @Test
+    void reuseTreeMctsTest() {
+        // Arrange: the opponent replies with the reply the agent searched most
+        Game game = new Game(Player.PLAYER_1, false, "TestMcts");
+        MctsAgent agent = new MctsAgent(Player.PLAYER_2, MctsConfig.builder()
+                .numThreads(1)
+                .budget(SearchBudget.builder().timeMillis(0).playouts(10_000).earlyStop(false).build())
+                .build());
+        game.makeMoveOnBoard(4, 4, PLAYER_1);
+        Node firstMove = agent.getMove(game);
+        game.makeMoveOnBoard(firstMove.getRow(), firstMove.getCol(), Player.PLAYER_2);
+        TreeArena tree = agent.getTrees()[0];
+        int firstNode = tree.findChild(ROOT, BitBoard.index(firstMove.getRow(), firstMove.getCol()));
+        int replyNode = tree.getFirstChild(firstNode);
+        for (int child = replyNode; child != NONE; child = tree.getNextSibling(child)) {
+            replyNode = tree.getVisits(child) > tree.getVisits(replyNode) ? child : replyNode;
+        }
+        float subtreeVisits = tree.getVisits(replyNode);
+        int subtreeSize = countSubtree(tree, replyNode);
+        int oldSize = tree.getSize();
+        game.makeMoveOnBoard(BitBoard.row(tree.getCell(replyNode)), BitBoard.col(tree.getCell(replyNode)), PLAYER_1);
+
+        // Act: the second search adds 1 visit and at most 1 node per playout
+        Node secondMove = agent.getMove(game, 0.5, Long.MAX_VALUE);
+
+        // Assert: the search started from the subtree of the reply, the rest of the tree was freed
+        assertThat(secondMove.getPlayer()).isNull();
+        assertThat(agent.getTrees()[0]).isSameAs(tree);
+        assertThat(subtreeVisits).isGreaterThan(1f);
+        assertThat(tree.getVisits(ROOT)).isEqualTo(subtreeVisits + 5_000);
+        assertThat(subtreeSize).isLessThan(oldSize);
+        assertThat(tree.getSize()).isLessThanOrEqualTo(subtreeSize + 5_000);
+    }
+
+    private static void awaitPonderedPlayouts(MctsAgent agent, long minPlayouts) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (agent.getNumPonderedPlayouts() < minPlayouts) {
+            assertThat(System.currentTimeMillis()).as("pondered playouts").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Returns the pondered playouts once they stayed the same for 100 ms, while a slice may still end.
+     */
+    private static long awaitStablePonderedPlayouts(MctsAgent agent) {
+        long playouts = agent.getNumPonderedPlayouts();
+        long stableSince = System.currentTimeMillis();
+        long deadline = stableSince + 10_000;
+        while (System.currentTimeMillis() - stableSince < 100) {
+            assertThat(System.currentTimeMillis()).as("pondering has not stopped").isLessThan(deadline);
+            if (agent.getNumPonderedPlayouts() != playouts) {
+                playouts = agent.getNumPonderedPlayouts();
+                stableSince = System.currentTimeMillis();
+            }
+            Thread.onSpinWait();
+        }
+        return playouts;
+    }
+
+    private static int countSubtree(TreeArena tree, int node) {
+        int size = 1;
+        for (int child = tree.getFirstChild(node); child != NONE; child = tree.getNextSibling(child)) {
+            size += countSubtree(tree, child);
+        }
+        return size;
+    }
+
+    @Test
+    void nodeBudgetMctsTest() {
+        for (MctsConfig.NodeBudgetPolicy policy : MctsConfig.NodeBudgetPolicy.values()) {
+            // Arrange: at most one node is added per playout, so the tree is full after 999 playouts
+            Game game = new Game(Player.PLAYER_1, false, "TestMcts");
+            MctsAgent agent = new MctsAgent(Player.PLAYER_2, MctsConfig.builder()
+                    .numThreads(1)
+                    .nodeBudget(1_000)
+                    .nodeBudgetPolicy(policy)
+                    .budget(SearchBudget.builder().timeMillis(0).playouts(5_000).earlyStop(false).build())
+                    .build());
+            game.makeMoveOnBoard(4, 4, PLAYER_1);
+
+            // Act
+            Node aiMove = agent.getMove(game);
+
+            // Assert: the search went on after the tree was full and every playout was backed up
+            TreeArena tree = agent.getTrees()[0];
+            assertThat(aiMove.getPlayer()).isNull();
+            assertThat(tree.getCapacity()).isEqualTo(1_000);
+            assertThat(tree.getSize()).isLessThanOrEqualTo(1_000);
+            assertThat(agent.getNumPlayouts()).isEqualTo(5_000);
+            assertThat(tree.getVisits(ROOT)).isEqualTo(5_000);
+            // a full tree is pruned right after the playout which filled it
+            assertThat(tree.isFull()).isEqualTo(policy == MctsConfig.NodeBudgetPolicy.STOP_EXPANDING);
+        }
+    }
+
+    @Test
+    void firstPlayUrgencyMctsTest() {
+        Game game = new Game(Player.PLAYER_1, false, "TestMcts");
+        Agent agent = new MctsAgent(Player.PLAYER_2, MctsConfig.builder()
+                .numThreads(1)
+                .tieBreak(MctsConfig.TieBreak.RANDOM)
+                .firstPlayUrgency(1.0)
+                .build());
+        game.makeMoveOnBoard(4, 4, PLAYER_1);
+
+        Node aiMove = agent.getMove(game);
+        assertThat(aiMove).isNotNull();
+        assertThat(aiMove.getPlayer()).isNull();
+    }
+
+    @Test
+    void playoutBudgetMctsTest() {
+        // Arrange
+        Game game = new Game(Player.PLAYER_1, false, "TestMcts");
+        MctsAgent agent = new MctsAgent(Player.PLAYER_2, MctsConfig.builder()
+                .numThreads(1)
+                .budget(SearchBudget.builder().timeMillis(0).playouts(5_000).earlyStop(false).build())
+                .build());
+        game.makeMoveOnBoard(4, 4, PLAYER_1);
+
+        // Act
+        Node aiMove = agent.getMove(game);
+
+        // Assert: without early stop the search runs to the limit
+        assertThat(aiMove.getPlayer()).isNull();
+        assertThat(agent.getNumPlayouts()).isEqualTo(5_000);
+        assertThat(agent.getTrees()[0].getVisits(ROOT)).isEqualTo(5_000);
+    }
+
+    @Test
+    void earlyStopMctsTest() {
+        // Arrange: PLAYER_1 has a chain from the first to the second to last row with one winning cell left,
+        // every action of PLAYER_2 except the block loses at once
+        BitBoard position = new BitBoard();
+        for (int row = 0; row < 10; row++) {
+            position.makeMove(BitBoard.index(row, 5), PLAYER_1);
+            if (row < 9) {
+                position.makeMove(BitBoard.index(row, 9), PLAYER_2);
+            }
+        }
+        int[] winningCells = Arrays.stream(position.getValidActions()).filter(cell -> {
+            BitBoard next = position.copy();
+            next.makeMove(cell, PLAYER_1);
+            return next.getWinner() == PLAYER_1;
+        }).toArray();
+        position.makeMove(winningCells[0], PLAYER_2);
+        position.makeMove(BitBoard.index(10, 0), PLAYER_1);
+        MctsAgent agent = new MctsAgent(Player.PLAYER_2, MctsConfig.builder()
+                .numThreads(1)
+                .priorWeight(0.0)
+                .wideningMinChildren(0)
+                .budget(SearchBudget.builder().timeMillis(0).playouts(20_000).build())
+                .build());
+
+        // Act
+        int cell = agent.getAction(position);
+
+        // Assert: the losing actions are proven, the block gathers a lead which the remaining playouts cannot
+        // catch up, long before the limit
+        assertThat(winningCells).hasSize(2);
+        assertThat(cell).isEqualTo(winningCells[1]);
+        assertThat(agent.getTrees()[0].getProof(ROOT)).isEqualTo(TreeArena.UNKNOWN);
+        assertThat(agent.getNumPlayouts()).isLessThan(20_000);
+    }
+
+    @Test
+    void ponderMctsTest() {
+        // Arrange
+        Game game = new Game(Player.PLAYER_1, false, "TestMcts");
+        MctsAgent agent = new MctsAgent(Player.PLAYER_2, MctsConfig.builder()
+                .numThreads(1)
+                .budget(SearchBudget.builder().timeMillis(0).playouts(1_000).earlyStop(false).build())
+                .ponder(true)
+                .build());
+        game.makeMoveOnBoard(4, 4, PLAYER_1);
+        Node firstMove = agent.getMove(game);
+        game.makeMoveOnBoard(firstMove.getRow(), firstMove.getCol(), Player.PLAYER_2);
+
+        // Act: ponder until the background search has run, pause it with a search, then stop it
+        agent.ponder(game);
+        awaitPonderedPlayouts(agent, 1);
+        PonderScheduler.INSTANCE.searchStarted();
+        long pausedPlayouts;
+        try {
+            pausedPlayouts = awaitStablePonderedPlayouts(agent);
+        } finally {
+            PonderScheduler.INSTANCE.searchFinished();
+        }
+        awaitPonderedPlayouts(agent, pausedPlayouts + 1);
+        agent.stopPondering();
+        long ponderedPlayouts = agent.getNumPonderedPlayouts();
+        long stoppedPlayouts = awaitStablePonderedPlayouts(agent);
+
+        // the opponent replies with the reply searched most while pondering
+        TreeArena tree = agent.getTrees()[0];
+        int replyNode = tree.getFirstChild(ROOT);
+        for (int child = replyNode; child != NONE; child = tree.getNextSibling(child)) {
+            replyNode = tree.getVisits(child) > tree.getVisits(replyNode) ? child : replyNode;
+        }
+        float replyVisits = tree.getVisits(replyNode);
+        game.makeMoveOnBoard(BitBoard.row(tree.getCell(replyNode)), BitBoard.col(tree.getCell(replyNode)), PLAYER_1);
+        Node secondMove = agent.getMove(game);
+
+        // Assert: the pondered subtree of the reply became the root of the second search
+        assertThat(pausedPlayouts).isPositive();
+        assertThat(stoppedPlayouts).isEqualTo(ponderedPlayouts);
+        assertThat(replyVisits).isPositive();
+        assertThat(tree.getVisits(ROOT)).isEqualTo(replyVisits + 1_000);
+        assertThat(secondMove.getPlayer()).isNull();
+        agent.close();
+    }
+
+    @Test
+    void solverMctsTest() {
+        // Arrange: PLAYER_2 connects column 0 to column 9 on row 5, only the last column is missing
+        Game game = new Game(Player.PLAYER_1, false, "TestMcts");
+        MctsAgent agent = new MctsAgent(Player.PLAYER_2, MctsConfig.builder()
+                .numThreads(1)
+                .budget(SearchBudget.builder().timeMillis(0).playouts(100_000).earlyStop(false).build())
+                .build());
+        for (int col = 0; col < 10; col++) {
+            game.makeMoveOnBoard(0, col, PLAYER_1);
+            game.makeMoveOnBoard(5, col, Player.PLAYER_2);
+        }
+        game.makeMoveOnBoard(10, 0, PLAYER_1);
+
+        // Act
+        Node aiMove = agent.getMove(game);
+        game.makeFinalMoveOnBoard(aiMove.getRow(), aiMove.getCol(), Player.PLAYER_2);
+
+        // Assert: the proven win ended the search long before the playout limit
+        assertThat(agent.getTrees()[0].getProof(ROOT)).isNotEqualTo(TreeArena.UNKNOWN);
+        assertThat(agent.getNumPlayouts()).isLessThan(100_000);
+        assertThat(game.getWinner()).isEqualTo(Player.PLAYER_2);
+        agent.close();
+    }
 }
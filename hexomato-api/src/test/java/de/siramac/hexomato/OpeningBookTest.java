@@ -0,0 +1,88 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.agent.SearchStats;
+import de.siramac.hexomato.agent.mcts.MctsAgent;
+import de.siramac.hexomato.agent.mcts.MctsConfig;
+import de.siramac.hexomato.agent.mcts.OpeningBook;
+import de.siramac.hexomato.agent.mcts.OpeningBookGenerator;
+import de.siramac.hexomato.agent.mcts.SearchBudget;
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.domain.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.NONE;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class OpeningBookTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void generateAndLookupTest() {
+        // Arrange: books for the first move of both players, searched briefly
+        MctsConfig config = MctsConfig.builder()
+                .numThreads(1)
+                .budget(SearchBudget.builder().timeMillis(0).playouts(200).build())
+                .build();
+        Map<Long, Integer> moves = new OpeningBookGenerator(config, 1).generate();
+        Path file = directory.resolve("opening-book.bin");
+        OpeningBook.write(moves, file);
+
+        // Act
+        OpeningBook book = OpeningBook.open(file);
+        BitBoard empty = new BitBoard();
+        BitBoard corner = new BitBoard();
+        corner.makeMove(BitBoard.index(0, 1), PLAYER_1);
+        BitBoard rotatedCorner = new BitBoard();
+        rotatedCorner.makeMove(BitBoard.rotate(BitBoard.index(0, 1)), PLAYER_1);
+        BitBoard twoStones = corner.copy();
+        twoStones.makeMove(BitBoard.index(5, 5), PLAYER_2);
+
+        // Assert: the empty board, the 121 first moves up to rotation, a position and its rotation share an entry
+        assertThat(book.size()).isEqualTo(1 + (BitBoard.NUM_CELLS + 1) / 2).isEqualTo(moves.size());
+        assertThat(book.lookup(empty)).isNotEqualTo(NONE);
+        int cell = book.lookup(corner);
+        assertThat(cell).isNotEqualTo(NONE);
+        assertThat(book.lookup(rotatedCorner)).isEqualTo(BitBoard.rotate(cell));
+        assertThat(book.lookup(twoStones)).isEqualTo(NONE);
+    }
+
+    @Test
+    void agentPlaysBookMoveTest() {
+        // Arrange: a book which answers the first move on (0, 1) with (5, 5)
+        BitBoard corner = new BitBoard();
+        corner.makeMove(BitBoard.index(0, 1), PLAYER_1);
+        Path file = directory.resolve("opening-book.bin");
+        OpeningBook.write(Map.of(OpeningBook.getKey(corner),
+                OpeningBook.toKeyCell(corner, BitBoard.index(5, 5))), file);
+        List<SearchStats> searches = new ArrayList<>();
+        MctsAgent agent = new MctsAgent(PLAYER_2, MctsConfig.builder()
+                .openingBook(OpeningBook.open(file))
+                .searchListener(searches::add)
+                .build());
+        Game game = new Game(PLAYER_2, false, "Monte-Carlo");
+        game.makeMoveOnBoard(0, 1, PLAYER_1);
+
+        // Act
+        Node node = agent.getMove(game);
+
+        // Assert: no search, the trees are not even allocated
+        assertThat(agent.getNumPlayouts()).isZero();
+        assertThat(agent.getTrees()).isNull();
+        assertThat(searches).isEmpty();
+        assertThat(node.getRow()).isEqualTo(5);
+        assertThat(node.getCol()).isEqualTo(5);
+    }
+}
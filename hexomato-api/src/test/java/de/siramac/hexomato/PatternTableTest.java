@@ -0,0 +1,188 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.pattern.PatternTable;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class PatternTableTest {
+
+    private final int[] responses = new int[PatternTable.MAX_RESPONSES];
+    private final PatternTable.Kind[] kinds = new PatternTable.Kind[PatternTable.MAX_RESPONSES];
+
+    @Test
+    void bridgeTest() {
+        // Arrange: the bridge (4, 4) - (5, 5) has the carriers (4, 5) and (5, 4)
+        BitBoard board = new BitBoard();
+        board.setPlayer(BitBoard.index(4, 4), PLAYER_1);
+        board.setPlayer(BitBoard.index(5, 5), PLAYER_1);
+        board.setPlayer(BitBoard.index(4, 5), PLAYER_2);
+
+        // Act
+        int numResponses = PatternTable.getResponses(board, BitBoard.index(4, 5), PLAYER_1, responses, kinds);
+        int numOpponentResponses = PatternTable.getResponses(board, BitBoard.index(4, 5), PLAYER_2, responses);
+
+        // Assert
+        assertThat(numResponses).isEqualTo(1);
+        assertThat(kinds[0]).isEqualTo(PatternTable.Kind.BRIDGE);
+        assertThat(numOpponentResponses).isZero();
+        assertThat(PatternTable.getResponses(board, BitBoard.index(4, 5), PLAYER_1, responses)).isEqualTo(1);
+        assertThat(responses[0]).isEqualTo(BitBoard.index(5, 4));
+    }
+
+    @Test
+    void bridgeCellTest() {
+        // Arrange: (4, 4) and (3, 6) form a bridge with (5, 5), the bridge of (4, 6) with (5, 7) is blocked
+        BitBoard board = new BitBoard();
+        board.setPlayer(BitBoard.index(5, 5), PLAYER_1);
+        board.setPlayer(BitBoard.index(5, 7), PLAYER_1);
+        board.setPlayer(BitBoard.index(4, 7), PLAYER_2);
+
+        // Act & Assert
+        assertThat(PatternTable.isBridge(board, BitBoard.index(4, 4), PLAYER_1)).isTrue();
+        assertThat(PatternTable.isBridge(board, BitBoard.index(4, 4), PLAYER_2)).isFalse();
+        assertThat(PatternTable.isBridge(board, BitBoard.index(4, 6), PLAYER_1)).isFalse();
+        assertThat(PatternTable.isBridge(board, BitBoard.index(3, 6), PLAYER_1)).isTrue();
+    }
+
+    @Test
+    void edgeTemplateTest() {
+        // Arrange: (1, 5) reaches the first row through (0, 5) or (0, 6)
+        BitBoard board = new BitBoard();
+        board.setPlayer(BitBoard.index(1, 5), PLAYER_1);
+        board.setPlayer(BitBoard.index(0, 5), PLAYER_2);
+
+        // Act
+        int numResponses = PatternTable.getResponses(board, BitBoard.index(0, 5), PLAYER_1, responses, kinds);
+
+        // Assert
+        assertThat(numResponses).isEqualTo(1);
+        assertThat(kinds[0]).isEqualTo(PatternTable.Kind.EDGE_TEMPLATE);
+        assertThat(responses[0]).isEqualTo(BitBoard.index(0, 6));
+    }
+
+    @Test
+    void ladderEscapeTest() {
+        // Arrange: both edge cells of (1, 3) are taken, the stone (1, 6) ahead on the second row escapes
+        BitBoard board = new BitBoard();
+        board.setPlayer(BitBoard.index(1, 3), PLAYER_1);
+        board.setPlayer(BitBoard.index(1, 6), PLAYER_1);
+        board.setPlayer(BitBoard.index(0, 4), PLAYER_2);
+        board.setPlayer(BitBoard.index(0, 3), PLAYER_2);
+
+        // Act
+        int numResponses = PatternTable.getResponses(board, BitBoard.index(0, 3), PLAYER_1, responses, kinds);
+        int push = responses[0];
+        board.setPlayer(BitBoard.index(1, 5), PLAYER_2);
+        int numBlockedResponses = PatternTable.getResponses(board, BitBoard.index(0, 3), PLAYER_1, responses);
+
+        // Assert: the ladder is pushed towards the escape, unless the opponent is in the way
+        assertThat(numResponses).isEqualTo(1);
+        assertThat(kinds[0]).isEqualTo(PatternTable.Kind.LADDER_ESCAPE);
+        assertThat(push).isEqualTo(BitBoard.index(1, 4));
+        assertThat(numBlockedResponses).isZero();
+    }
+
+    @Test
+    void deadCellTest() {
+        // Arrange: (5, 5) has four neighbours of PLAYER_1 in a row, (0, 5) two stones and the edge of PLAYER_1
+        BitBoard board = new BitBoard();
+        for (int cell : new int[]{BitBoard.index(5, 6), BitBoard.index(4, 6), BitBoard.index(4, 5),
+                BitBoard.index(5, 4), BitBoard.index(0, 4), BitBoard.index(0, 6)}) {
+            board.setPlayer(cell, PLAYER_1);
+        }
+
+        // Act
+        boolean[] dead = new boolean[BitBoard.NUM_CELLS];
+        for (int cell = 0; cell < BitBoard.NUM_CELLS; cell++) {
+            dead[cell] = board.isEmpty(cell) && PatternTable.isDead(board, cell);
+        }
+
+        // Assert
+        assertThat(dead[BitBoard.index(5, 5)]).isTrue();
+        assertThat(dead[BitBoard.index(0, 5)]).isTrue();
+        assertThat(dead[BitBoard.index(6, 6)]).isFalse();
+        assertThat(PatternTable.isDead(new BitBoard(), BitBoard.index(5, 5))).isFalse();
+        assertThat(PatternTable.isRedundant(board, BitBoard.index(5, 5), PLAYER_2)).isTrue();
+    }
+
+    @Test
+    void fillInTest() {
+        // Arrange: the edge cells (0, 5) and (0, 6) of the stone (1, 5) are captured by PLAYER_1,
+        // (5, 5) is dead, PLAYER_1 is to move
+        BitBoard board = new BitBoard();
+        for (int cell : new int[]{BitBoard.index(1, 5), BitBoard.index(5, 6), BitBoard.index(4, 6),
+                BitBoard.index(4, 5), BitBoard.index(5, 4)}) {
+            board.setPlayer(cell, PLAYER_1);
+        }
+        long[] player1Cells = new long[BitBoard.NUM_WORDS];
+        long[] player2Cells = new long[BitBoard.NUM_WORDS];
+
+        // Act
+        int numFilled = PatternTable.fillIn(board, player1Cells, player2Cells);
+
+        // Assert: captured cells are filled for their player, dead cells for the opponent of the player to move
+        assertThat(numFilled).isGreaterThanOrEqualTo(3);
+        assertThat(isSet(player1Cells, BitBoard.index(0, 5))).isTrue();
+        assertThat(isSet(player1Cells, BitBoard.index(0, 6))).isTrue();
+        assertThat(isSet(player2Cells, BitBoard.index(5, 5))).isTrue();
+        assertThat(isSet(player1Cells, BitBoard.index(0, 4)) || isSet(player2Cells, BitBoard.index(0, 4))).isFalse();
+        assertThat(isSet(player1Cells, BitBoard.index(1, 5))).isFalse();
+    }
+
+    @Test
+    void inferiorMovesTest() {
+        // Arrange: a stone of PLAYER_1 on (5, 4) or (6, 5) makes (5, 5) dead, PLAYER_1 is to move
+        BitBoard board = new BitBoard();
+        for (int cell : new int[]{BitBoard.index(5, 6), BitBoard.index(4, 6), BitBoard.index(4, 5)}) {
+            board.setPlayer(cell, PLAYER_1);
+        }
+        board.setPlayer(BitBoard.index(8, 8), PLAYER_2);
+        long[] player1Cells = new long[BitBoard.NUM_WORDS];
+        long[] player2Cells = new long[BitBoard.NUM_WORDS];
+        long[] inferiorMoves = new long[BitBoard.NUM_WORDS];
+
+        // Act
+        int numFilled = PatternTable.fillIn(board, player1Cells, player2Cells);
+        int numInferior = PatternTable.getInferiorMoves(board, player1Cells, player2Cells, inferiorMoves);
+
+        // Assert: (5, 5) is dominated but not dead, its dominating neighbours are kept
+        assertThat(numFilled).isZero();
+        assertThat(numInferior).isEqualTo(Long.bitCount(inferiorMoves[0]) + Long.bitCount(inferiorMoves[1]));
+        assertThat(isSet(inferiorMoves, BitBoard.index(5, 5))).isTrue();
+        assertThat(isSet(inferiorMoves, BitBoard.index(5, 4))).isFalse();
+        assertThat(isSet(inferiorMoves, BitBoard.index(6, 5))).isFalse();
+        assertThat(isSet(inferiorMoves, BitBoard.index(5, 6))).isFalse();
+    }
+
+    @Test
+    void inferiorFilledMovesTest() {
+        // Arrange: the board of fillInTest, PLAYER_1 is to move
+        BitBoard board = new BitBoard();
+        for (int cell : new int[]{BitBoard.index(1, 5), BitBoard.index(5, 6), BitBoard.index(4, 6),
+                BitBoard.index(4, 5), BitBoard.index(5, 4)}) {
+            board.setPlayer(cell, PLAYER_1);
+        }
+        long[] player1Cells = new long[BitBoard.NUM_WORDS];
+        long[] player2Cells = new long[BitBoard.NUM_WORDS];
+        long[] inferiorMoves = new long[BitBoard.NUM_WORDS];
+
+        // Act
+        PatternTable.getInferiorMoves(board, player1Cells, player2Cells, inferiorMoves);
+
+        // Assert: the dead cell is skipped, the own captured cells are not
+        assertThat(isSet(inferiorMoves, BitBoard.index(5, 5))).isTrue();
+        assertThat(isSet(inferiorMoves, BitBoard.index(0, 5))).isFalse();
+        assertThat(isSet(inferiorMoves, BitBoard.index(0, 6))).isFalse();
+        assertThat(isSet(inferiorMoves, BitBoard.index(1, 5))).isFalse();
+    }
+
+    private static boolean isSet(long[] cells, int cell) {
+        return (cells[cell >>> 6] & (1L << cell)) != 0;
+    }
+}
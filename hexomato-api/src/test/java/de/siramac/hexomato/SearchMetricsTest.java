@@ -0,0 +1,64 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.agent.SearchStats;
+import de.siramac.hexomato.agent.mcts.MctsAgent;
+import de.siramac.hexomato.agent.mcts.MctsConfig;
+import de.siramac.hexomato.agent.mcts.SearchBudget;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.service.SearchMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class SearchMetricsTest {
+
+    @Autowired
+    private SearchMetrics searchMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void searchMetricsTest() {
+        // Arrange: two threads with a tree each
+        Game game = new Game(PLAYER_1, false, "TestMetrics");
+        game.makeMoveOnBoard(5, 5, PLAYER_1);
+        List<SearchStats> searches = new CopyOnWriteArrayList<>();
+        MctsAgent agent = new MctsAgent(PLAYER_2, MctsConfig.builder()
+                .numThreads(2)
+                .budget(SearchBudget.builder().timeMillis(0).playouts(400).earlyStop(false).build())
+                .searchListener(stats -> {
+                    searches.add(stats);
+                    searchMetrics.record("TestMetrics", stats);
+                })
+                .build());
+
+        // Act
+        agent.getMove(game);
+
+        // Assert
+        assertThat(searches).hasSize(1);
+        SearchStats stats = searches.get(0);
+        assertThat(stats.getPlayouts()).isEqualTo(agent.getNumPlayouts());
+        assertThat(stats.getTreeNodes()).isGreaterThan(2);
+        assertThat(stats.getMaxDepth()).isGreaterThanOrEqualTo(1);
+        assertThat(stats.getAverageDepth()).isBetween(1.0, (double) stats.getMaxDepth());
+        assertThat(stats.getRootEntropy()).isBetween(0.0, Math.log(game.getNumActions()));
+        assertThat(stats.getBestMoveWinRate()).isBetween(0.0, 1.0);
+        assertThat(stats.getPlayoutsPerSecond()).isPositive();
+        assertThat(meterRegistry.get("hexomato.ai.search.playouts").tag("seat", "TestMetrics").counter().count())
+                .isEqualTo(stats.getPlayouts());
+        assertThat(meterRegistry.get("hexomato.ai.search.root.entropy").tag("seat", "TestMetrics").summary().count())
+                .isEqualTo(1);
+        agent.close();
+    }
+}
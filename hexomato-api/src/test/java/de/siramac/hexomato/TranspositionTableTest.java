@@ -0,0 +1,74 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.agent.mcts.TranspositionTable;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class TranspositionTableTest {
+
+    // hashes which share the bucket of slots 2 and 3 in a table of 8 slots
+    private static final long HASH_A = 2L;
+    private static final long HASH_B = 3L;
+    private static final long HASH_C = 10L;
+
+    @Test
+    void replaceLessVisitedTest() {
+        // Arrange
+        TranspositionTable table = new TranspositionTable(8);
+        table.update(HASH_A, 5, 1.0);
+        table.update(HASH_A, 5, 0.0);
+        table.update(HASH_B, 3, 1.0);
+
+        // Act
+        table.update(HASH_C, 4, 1.0);
+
+        // Assert: the more visited position is kept, whatever its depth
+        assertThat(table.find(HASH_A)).isNotNegative();
+        assertThat(table.find(HASH_B)).isNegative();
+        assertThat(table.find(HASH_C)).isNotNegative();
+        assertThat(table.getVisits(table.find(HASH_A))).isEqualTo(2.0);
+        assertThat(table.getValues(table.find(HASH_A))).isEqualTo(1.0);
+        assertThat(table.getVisits(table.find(HASH_C))).isEqualTo(1.0);
+    }
+
+    @Test
+    void replaceDeeperTest() {
+        // Arrange
+        TranspositionTable table = new TranspositionTable(8);
+        table.update(HASH_A, 7, 1.0);
+        table.update(HASH_B, 3, 1.0);
+
+        // Act
+        table.update(HASH_C, 5, 0.0);
+
+        // Assert: on equal visits the position with fewer stones is kept, its subtree is searched deeper
+        assertThat(table.find(HASH_A)).isNegative();
+        assertThat(table.find(HASH_B)).isNotNegative();
+        assertThat(table.find(HASH_C)).isNotNegative();
+    }
+
+    @Test
+    void countersTest() {
+        // Arrange
+        TranspositionTable table = new TranspositionTable(8);
+        table.update(HASH_A, 3, 1.0);
+        table.update(HASH_B, 5, 1.0);
+        table.update(HASH_C, 5, 1.0);
+
+        // Act
+        boolean hit = table.lookup(HASH_A);
+        boolean miss = table.lookup(HASH_B);
+        boolean empty = table.lookup(0L);
+        String counters = table.getAndResetCounters();
+
+        // Assert: HASH_C replaced HASH_B, the empty board is never stored
+        assertThat(hit).isTrue();
+        assertThat(miss).isFalse();
+        assertThat(empty).isFalse();
+        assertThat(counters).startsWith("1/3 hits").endsWith(", 1 replacements");
+        assertThat(table.getAndResetCounters()).startsWith("0/0 hits").endsWith(", 0 replacements");
+    }
+}
@@ -0,0 +1,193 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.agent.mcts.ArenaPool;
+import de.siramac.hexomato.agent.mcts.TreeArena;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.NONE;
+import static de.siramac.hexomato.agent.mcts.TreeArena.ROOT;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class TreeArenaTest {
+
+    @Test
+    void addChildTest() {
+        // Arrange
+        TreeArena tree = new TreeArena(3, false);
+
+        // Act
+        int first = tree.addChild(ROOT, 5);
+        int again = tree.addChild(ROOT, 5);
+        int second = tree.addChild(ROOT, 7);
+        int full = tree.addChild(ROOT, 9);
+
+        // Assert
+        assertThat(again).isEqualTo(first);
+        assertThat(tree.findChild(ROOT, 7)).isEqualTo(second);
+        assertThat(tree.getParent(second)).isEqualTo(ROOT);
+        assertThat(full).isEqualTo(NONE);
+        assertThat(tree.getSize()).isEqualTo(3);
+    }
+
+    @Test
+    void rerootTest() {
+        // Arrange: root -> 1 -> 2 -> {3, 4}, the sibling 10 of 1 is dropped
+        TreeArena tree = new TreeArena(16, true);
+        int sibling = tree.addChild(ROOT, 10);
+        int ownMove = tree.addChild(ROOT, 1);
+        int newRoot = tree.addChild(ownMove, 2);
+        tree.addChild(sibling, 20);
+        int grandchild = tree.addChild(newRoot, 3);
+        tree.addChild(newRoot, 4);
+        tree.addVisits(newRoot, 20f);
+        tree.addVisits(grandchild, 5f);
+        tree.addValues(grandchild, 2f);
+        int amafTable = tree.getOrCreateAmafTable(newRoot);
+        tree.addAmaf(amafTable, 3, 1f);
+
+        // Act
+        tree.reroot(newRoot);
+
+        // Assert
+        assertThat(tree.getSize()).isEqualTo(3);
+        assertThat(tree.getVisits(ROOT)).isEqualTo(20f);
+        assertThat(tree.getParent(ROOT)).isEqualTo(NONE);
+        int movedGrandchild = tree.findChild(ROOT, 3);
+        assertThat(movedGrandchild).isNotEqualTo(NONE);
+        assertThat(tree.getParent(movedGrandchild)).isEqualTo(ROOT);
+        assertThat(tree.getVisits(movedGrandchild)).isEqualTo(5f);
+        assertThat(tree.getValues(movedGrandchild)).isEqualTo(2f);
+        assertThat(tree.findChild(ROOT, 4)).isNotEqualTo(NONE);
+        assertThat(tree.findChild(ROOT, 10)).isEqualTo(NONE);
+        assertThat(tree.getAmafVisits(tree.getAmafTable(ROOT), 3)).isEqualTo(1f);
+    }
+
+    @Test
+    void inferiorMovesTest() {
+        // Arrange: root -> 1 -> 2, the new root 2 is analysed
+        TreeArena tree = new TreeArena(16, false, true);
+        int newRoot = tree.addChild(tree.addChild(ROOT, 1), 2);
+        long[] inferiorMoves = {1L << 7, 1L << (NUM_CELLS - 65)};
+        long[] moves = new long[inferiorMoves.length];
+
+        // Act
+        boolean analysedBefore = tree.getInferiorMoves(newRoot, moves);
+        tree.setInferiorMoves(newRoot, inferiorMoves);
+        tree.reroot(newRoot);
+
+        // Assert: the moves move with their node, a new node is not analysed
+        assertThat(analysedBefore).isFalse();
+        assertThat(tree.getInferiorMoves(ROOT, moves)).isTrue();
+        assertThat(moves).containsExactly(inferiorMoves);
+        assertThat(tree.getInferiorMoves(tree.addChild(ROOT, 3), moves)).isFalse();
+        assertThat(new TreeArena(16, false).getInferiorMoves(ROOT, moves)).isFalse();
+        assertThat(tree.getBytes()).isGreaterThan(TreeArena.getBytes(16, false, false));
+    }
+
+    @Test
+    void pruneTest() {
+        // Arrange: root -> {a (8 visits) -> a1 -> a11, b (1 visit) -> b1 -> b11}
+        TreeArena tree = new TreeArena(7, false);
+        int a = tree.addChild(ROOT, 1);
+        int b = tree.addChild(ROOT, 2);
+        int a1 = tree.addChild(a, 3);
+        int b1 = tree.addChild(b, 4);
+        tree.addChild(a1, 5);
+        tree.addChild(b1, 6);
+        tree.addVisits(ROOT, 9f);
+        tree.addVisits(a, 8f);
+        tree.addVisits(a1, 8f);
+        tree.addVisits(b, 1f);
+        tree.addVisits(b1, 1f);
+
+        // Act
+        int numPrunedNodes = tree.prune(5);
+
+        // Assert: the subtree of the less visited b is recycled, b stays as a leaf
+        assertThat(tree.isFull()).isFalse();
+        assertThat(numPrunedNodes).isEqualTo(2);
+        int keptA = tree.findChild(ROOT, 1);
+        int keptB = tree.findChild(ROOT, 2);
+        assertThat(tree.getVisits(keptB)).isEqualTo(1f);
+        assertThat(tree.getFirstChild(keptB)).isEqualTo(NONE);
+        assertThat(tree.findChild(tree.findChild(keptA, 3), 5)).isNotEqualTo(NONE);
+    }
+
+    @Test
+    void arenaPoolTest() {
+        // Arrange: room for two idle arenas of 1000 nodes
+        ArenaPool arenaPool = new ArenaPool(2 * TreeArena.getBytes(1_000, false, false));
+        TreeArena first = arenaPool.acquire(1_000, false, false);
+        TreeArena second = arenaPool.acquire(1_000, false, false);
+        TreeArena third = arenaPool.acquire(1_000, false, false);
+        first.addChild(ROOT, 5);
+
+        // Act
+        arenaPool.release(first);
+        arenaPool.release(second);
+        arenaPool.release(third);
+        TreeArena reused = arenaPool.acquire(1_000, false, false);
+        TreeArena rave = arenaPool.acquire(1_000, true, false);
+
+        // Assert: the third arena exceeds the bytes of the pool, a reused arena is cleared
+        assertThat(first.getBytes()).isEqualTo(TreeArena.getBytes(1_000, false, false));
+        assertThat(rave.getBytes()).isGreaterThan(first.getBytes());
+        assertThat(reused).isIn(first, second);
+        assertThat(reused.getSize()).isEqualTo(1);
+        assertThat(rave).isNotIn(first, second, third);
+        assertThat(arenaPool.getNumIdle()).isEqualTo(1);
+        assertThat(arenaPool.getIdleBytes()).isEqualTo(first.getBytes());
+    }
+
+    @Test
+    void concurrentAddChildTest() throws Exception {
+        // Arrange: threads which add the same children at the same time
+        int numThreads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                TreeArena tree = new TreeArena(1 << 12, false);
+                CyclicBarrier start = new CyclicBarrier(numThreads);
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (int i = 0; i < numThreads; i++) {
+                    tasks.add(() -> {
+                        start.await();
+                        for (int cell = 0; cell < NUM_CELLS; cell++) {
+                            tree.addChild(ROOT, cell);
+                        }
+                        return null;
+                    });
+                }
+
+                // Act
+                for (Future<Void> future : executor.invokeAll(tasks)) {
+                    future.get();
+                }
+                int allocated = tree.getSize();
+                tree.reroot(ROOT);
+
+                // Assert: one node per cell, the nodes of lost races were dropped by the compaction
+                int numChildren = 0;
+                for (int child = tree.getFirstChild(ROOT); child != NONE; child = tree.getNextSibling(child)) {
+                    numChildren++;
+                }
+                assertThat(numChildren).isEqualTo(NUM_CELLS);
+                assertThat(allocated).isGreaterThanOrEqualTo(NUM_CELLS + 1);
+                assertThat(tree.getSize()).isEqualTo(NUM_CELLS + 1);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
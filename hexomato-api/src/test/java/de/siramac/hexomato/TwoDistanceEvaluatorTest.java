@@ -0,0 +1,72 @@
+package de.siramac.hexomato;
+
+import de.siramac.hexomato.agent.evaluation.TwoDistanceEvaluator;
+import de.siramac.hexomato.domain.BitBoard;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class TwoDistanceEvaluatorTest {
+
+    private final TwoDistanceEvaluator evaluator = new TwoDistanceEvaluator();
+
+    @Test
+    void emptyBoardTest() {
+        // Arrange
+        BitBoard board = new BitBoard();
+
+        // Act
+        int potential1 = evaluator.getPotential(board, PLAYER_1);
+        int potential2 = evaluator.getPotential(board, PLAYER_2);
+
+        // Assert: both players are equally far, the player to move is ahead by a tempo
+        assertThat(potential1).isEqualTo(potential2);
+        assertThat(evaluator.getWinProbability(board, PLAYER_1)).isGreaterThan(0.5);
+        assertThat(evaluator.getWinProbability(board, PLAYER_2)).isGreaterThan(0.5);
+    }
+
+    @Test
+    void potentialTest() {
+        // Arrange: the column 5 of PLAYER_1 is one stone short of the last row
+        BitBoard board = new BitBoard();
+        for (int row = 0; row < 10; row++) {
+            board.setPlayer(BitBoard.index(row, 5), PLAYER_1);
+        }
+
+        // Act
+        int potential1 = evaluator.getPotential(board, PLAYER_1);
+        int potential2 = evaluator.getPotential(board, PLAYER_2);
+        board.makeMove(BitBoard.index(10, 5), PLAYER_1);
+
+        // Assert: the last cell is at distance 1 of both edges, PLAYER_2 can't cross the column
+        assertThat(potential1).isEqualTo(2);
+        assertThat(potential2).isEqualTo(TwoDistanceEvaluator.UNREACHABLE);
+        assertThat(evaluator.getPotential(board, PLAYER_1)).isZero();
+        assertThat(evaluator.getWinProbability(board, PLAYER_1)).isEqualTo(1.0);
+        assertThat(evaluator.getWinProbability(board, PLAYER_2)).isEqualTo(0.0);
+    }
+
+    @Test
+    void advantageTest() {
+        // Arrange: PLAYER_1 has a chain of bridges down the middle, PLAYER_2 scattered stones
+        BitBoard board = new BitBoard();
+        for (int row = 1; row < 10; row += 2) {
+            board.setPlayer(BitBoard.index(row, 5), PLAYER_1);
+        }
+        for (int cell : new int[]{BitBoard.index(0, 0), BitBoard.index(10, 10), BitBoard.index(0, 10),
+                BitBoard.index(10, 0), BitBoard.index(3, 1)}) {
+            board.setPlayer(cell, PLAYER_2);
+        }
+
+        // Act
+        double winProbability = evaluator.getWinProbability(board, PLAYER_2);
+
+        // Assert
+        assertThat(evaluator.getPotential(board, PLAYER_1)).isLessThan(evaluator.getPotential(board, PLAYER_2));
+        assertThat(winProbability).isLessThan(0.5);
+    }
+}
@@ -15,4 +15,11 @@ public class UtilTest {
         int bestAction = Util.getArgMax(array);
         assertThat(bestAction).isEqualTo(3);
     }
+
+    @Test
+    void argMaxTieTest() {
+        double[] array = {5.0, 2.1, 5.0, 0.3};
+        int bestAction = Util.getArgMax(array);
+        assertThat(bestAction).isEqualTo(2);
+    }
 }
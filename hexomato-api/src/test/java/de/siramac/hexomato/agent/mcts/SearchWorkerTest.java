@@ -0,0 +1,259 @@
+package de.siramac.hexomato.agent.mcts;
+
+import de.siramac.hexomato.domain.BitBoard;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.NONE;
+import static de.siramac.hexomato.agent.mcts.TreeArena.ROOT;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+import static de.siramac.hexomato.domain.Player.PLAYER_2;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the selection and the backup of {@link SearchWorker} on hand-built trees, in this package because
+ * the worker is package-private.
+ */
+@SpringBootTest
+public class SearchWorkerTest {
+
+    private static final MctsConfig UCT_CONFIG = MctsConfig.builder()
+            .priorWeight(0.0)
+            .wideningMinChildren(0)
+            .pruneInferiorCells(false)
+            .build();
+
+    @Test
+    void amafUpdateTest() {
+        // Arrange: the root has enough visits for an AMAF table, the search runs one playout at a time
+        BitBoard position = new BitBoard();
+        position.makeMove(BitBoard.index(5, 5), PLAYER_1);
+        position.makeMove(BitBoard.index(3, 7), PLAYER_2);
+        TreeArena tree = new TreeArena(1 << 12, true);
+        tree.addVisits(ROOT, TreeArena.AMAF_MIN_VISITS);
+        SearchWorker worker = new SearchWorker(new SplittableRandom(42), UCT_CONFIG);
+        SearchContext context = createContext(1_000, Double.POSITIVE_INFINITY, MctsConfig.TieBreak.LAST);
+        SearchBudget onePlayout = SearchBudget.builder().timeMillis(0).playouts(1).earlyStop(false).build();
+        float[] amafVisits = new float[NUM_CELLS];
+        float[] amafValues = new float[NUM_CELLS];
+        double[] childVisits = new double[NUM_CELLS];
+        double[] childValues = new double[NUM_CELLS];
+
+        for (int playout = 0; playout < 200; playout++) {
+            // Act
+            worker.search(tree, position, context, new BudgetTracker(onePlayout, new TreeArena[]{tree}), 0f);
+
+            // Assert: every cell of the root player got one AMAF visit with the result of the playout,
+            // the action of the root is one of them
+            int amafTable = tree.getAmafTable(ROOT);
+            assertThat(amafTable).isNotEqualTo(NONE);
+            int playedChild = NONE;
+            for (int child = tree.getFirstChild(ROOT); child != NONE; child = tree.getNextSibling(child)) {
+                int cell = tree.getCell(child);
+                if (tree.getVisits(child) > childVisits[cell]) {
+                    playedChild = child;
+                }
+            }
+            assertThat(playedChild).isNotEqualTo(NONE);
+            int playedCell = tree.getCell(playedChild);
+            float value = (float) (tree.getValues(playedChild) - childValues[playedCell]);
+            childVisits[playedCell] = tree.getVisits(playedChild);
+            childValues[playedCell] = tree.getValues(playedChild);
+            assertThat(tree.getAmafVisits(amafTable, playedCell) - amafVisits[playedCell]).isEqualTo(1f);
+            for (int cell = 0; cell < NUM_CELLS; cell++) {
+                float visits = tree.getAmafVisits(amafTable, cell) - amafVisits[cell];
+                float values = tree.getAmafValues(amafTable, cell) - amafValues[cell];
+                assertThat(visits).isIn(0f, 1f);
+                assertThat(values).isEqualTo(visits * value);
+                if (!position.isEmpty(cell)) {
+                    assertThat(visits).isZero();
+                }
+                amafVisits[cell] = tree.getAmafVisits(amafTable, cell);
+                amafValues[cell] = tree.getAmafValues(amafTable, cell);
+            }
+        }
+    }
+
+    @Test
+    void raveBlendTest() {
+        // Arrange: A wins 50% of its visits and 0% AMAF, B wins 40% and 100% AMAF, with 100 visits each
+        // B overtakes A where beta = sqrt(k / (300 + k)) > 1/11, that is for k > 2.5
+        BitBoard position = new BitBoard();
+        int cellA = BitBoard.index(5, 5);
+        int cellB = BitBoard.index(5, 6);
+        TreeArena tree = new TreeArena(16, true);
+        tree.addVisits(ROOT, 200f);
+        int childA = tree.addChild(ROOT, cellA);
+        tree.addVisits(childA, 100f);
+        tree.addValues(childA, 50f);
+        int childB = tree.addChild(ROOT, cellB);
+        tree.addVisits(childB, 100f);
+        tree.addValues(childB, 40f);
+        int amafTable = tree.getOrCreateAmafTable(ROOT);
+        for (int i = 0; i < 100; i++) {
+            tree.addAmaf(amafTable, cellA, 0f);
+            tree.addAmaf(amafTable, cellB, 1f);
+        }
+        SearchWorker worker = new SearchWorker(new SplittableRandom(42), UCT_CONFIG);
+
+        // Act: the untried actions are rated with a first-play urgency of 0 and lose
+        int weakRave = worker.selectAction(tree, ROOT, position, createContext(2, 0.0, MctsConfig.TieBreak.LAST));
+        int strongRave = worker.selectAction(tree, ROOT, position, createContext(3, 0.0, MctsConfig.TieBreak.LAST));
+        int fullRave = worker.selectAction(tree, ROOT, position, createContext(1e9, 0.0, MctsConfig.TieBreak.LAST));
+
+        // Assert
+        assertThat(weakRave).isEqualTo(cellA);
+        assertThat(strongRave).isEqualTo(cellB);
+        assertThat(fullRave).isEqualTo(cellB);
+    }
+
+    @Test
+    void firstPlayUrgencyTest() {
+        // Arrange: a root whose only child won 9 of 10 visits
+        BitBoard position = new BitBoard();
+        TreeArena tree = new TreeArena(16, false);
+        tree.addVisits(ROOT, 10f);
+        int child = tree.addChild(ROOT, BitBoard.index(5, 5));
+        tree.addVisits(child, 10f);
+        tree.addValues(child, 9f);
+        SearchWorker worker = new SearchWorker(new SplittableRandom(42), UCT_CONFIG);
+
+        // Act
+        int infiniteUrgency = worker.selectAction(tree, ROOT, position,
+                createContext(0, Double.POSITIVE_INFINITY, MctsConfig.TieBreak.LAST));
+        int finiteUrgency = worker.selectAction(tree, ROOT, position,
+                createContext(0, 0.5, MctsConfig.TieBreak.LAST));
+
+        // Assert: an infinite urgency tries an action without a node first, a finite one revisits the child
+        assertThat(infiniteUrgency).isNotEqualTo(BitBoard.index(5, 5));
+        assertThat(position.isEmpty(infiniteUrgency)).isTrue();
+        assertThat(finiteUrgency).isEqualTo(BitBoard.index(5, 5));
+    }
+
+    @Test
+    void firstPlayUrgencySearchTest() {
+        // Arrange: enough playouts to try every action of the root once
+        BitBoard position = new BitBoard();
+        position.makeMove(BitBoard.index(5, 5), PLAYER_1);
+        SearchBudget budget = SearchBudget.builder().timeMillis(0).playouts(500).earlyStop(false).build();
+        TreeArena infiniteTree = new TreeArena(1 << 12, false);
+        TreeArena finiteTree = new TreeArena(1 << 12, false);
+
+        // Act
+        new SearchWorker(new SplittableRandom(42), UCT_CONFIG).search(infiniteTree, position,
+                createContext(0, Double.POSITIVE_INFINITY, MctsConfig.TieBreak.LAST),
+                new BudgetTracker(budget, new TreeArena[]{infiniteTree}), 0f);
+        new SearchWorker(new SplittableRandom(42), UCT_CONFIG).search(finiteTree, position,
+                createContext(0, 0.5, MctsConfig.TieBreak.LAST),
+                new BudgetTracker(budget, new TreeArena[]{finiteTree}), 0f);
+
+        // Assert: with a finite urgency good actions are revisited and others are never tried
+        assertThat(countChildren(infiniteTree, ROOT)).isEqualTo(position.getNumActions());
+        assertThat(countChildren(finiteTree, ROOT)).isLessThan(position.getNumActions());
+    }
+
+    @Test
+    void tieBreakTest() {
+        // Arrange: three children with the same statistics, the actions without a node are rated lower
+        BitBoard position = new BitBoard();
+        int[] cells = {BitBoard.index(2, 2), BitBoard.index(5, 5), BitBoard.index(8, 8)};
+        TreeArena tree = new TreeArena(16, false);
+        tree.addVisits(ROOT, 30f);
+        for (int cell : cells) {
+            int child = tree.addChild(ROOT, cell);
+            tree.addVisits(child, 10f);
+            tree.addValues(child, 5f);
+        }
+        SearchWorker worker = new SearchWorker(new SplittableRandom(42), UCT_CONFIG);
+        double[] visitsByCell = new double[NUM_CELLS];
+        tree.addChildVisits(ROOT, visitsByCell);
+
+        // Act
+        int first = worker.selectAction(tree, ROOT, position, createContext(0, 0.0, MctsConfig.TieBreak.FIRST));
+        int last = worker.selectAction(tree, ROOT, position, createContext(0, 0.0, MctsConfig.TieBreak.LAST));
+        Set<Integer> random = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            random.add(worker.selectAction(tree, ROOT, position, createContext(0, 0.0, MctsConfig.TieBreak.RANDOM)));
+        }
+
+        // Assert: a new child is put in front of its siblings, so FIRST selects the child added last
+        assertThat(first).isEqualTo(cells[2]);
+        assertThat(last).isEqualTo(cells[0]);
+        assertThat(random).containsExactlyInAnyOrder(cells[0], cells[1], cells[2]);
+        assertThat(Util.getArgMax(visitsByCell)).isEqualTo(cells[2]);
+        tree.addVisits(tree.findChild(ROOT, cells[1]), 1f);
+        Arrays.fill(visitsByCell, 0.0);
+        tree.addChildVisits(ROOT, visitsByCell);
+        assertThat(Util.getArgMax(visitsByCell)).isEqualTo(cells[1]);
+    }
+
+    @Test
+    void inferiorMovesTest() {
+        // Arrange: a stone of PLAYER_1 on (5, 4) or (6, 5) makes (5, 5) dead, PLAYER_1 is to move
+        BitBoard position = new BitBoard();
+        for (int cell : new int[]{BitBoard.index(5, 6), BitBoard.index(4, 6), BitBoard.index(4, 5)}) {
+            position.setPlayer(cell, PLAYER_1);
+        }
+        position.setPlayer(BitBoard.index(8, 8), PLAYER_2);
+        TreeArena tree = new TreeArena(1 << 12, false, true);
+        MctsConfig config = MctsConfig.builder().priorWeight(0.0).wideningMinChildren(0).build();
+        SearchWorker worker = new SearchWorker(new SplittableRandom(42), config);
+        SearchBudget budget = SearchBudget.builder().timeMillis(0).playouts(500).earlyStop(false).build();
+        long[] inferiorMoves = new long[BitBoard.NUM_WORDS];
+
+        // Act
+        worker.search(tree, position, createContext(0, Double.POSITIVE_INFINITY, MctsConfig.TieBreak.FIRST), new BudgetTracker(budget,
+                new TreeArena[]{tree}), 0f);
+
+        // Assert: the root keeps its inferior moves, the dominated cell gets no node
+        assertThat(tree.getInferiorMoves(ROOT, inferiorMoves)).isTrue();
+        int dominated = BitBoard.index(5, 5);
+        assertThat(inferiorMoves[dominated >>> 6] & (1L << dominated)).isNotZero();
+        assertThat(tree.findChild(ROOT, dominated)).isEqualTo(NONE);
+        assertThat(tree.findChild(ROOT, BitBoard.index(5, 4))).isNotEqualTo(NONE);
+    }
+
+    @Test
+    void cachedInferiorMovesTest() {
+        // Arrange: the kept inferior moves of the root are all empty cells but one
+        BitBoard position = new BitBoard();
+        int kept = BitBoard.index(7, 3);
+        long[] inferiorMoves = new long[BitBoard.NUM_WORDS];
+        for (int cell = 0; cell < NUM_CELLS; cell++) {
+            if (cell != kept) {
+                inferiorMoves[cell >>> 6] |= 1L << cell;
+            }
+        }
+        TreeArena tree = new TreeArena(16, false, true);
+        tree.setInferiorMoves(ROOT, inferiorMoves);
+        MctsConfig config = MctsConfig.builder().priorWeight(0.0).wideningMinChildren(0).build();
+        SearchWorker worker = new SearchWorker(new SplittableRandom(42), config);
+
+        // Act
+        int cell = worker.selectAction(tree, ROOT, position,
+                createContext(0, Double.POSITIVE_INFINITY, MctsConfig.TieBreak.FIRST));
+
+        // Assert: the node is not analysed again, the empty board has no inferior moves
+        assertThat(cell).isEqualTo(kept);
+    }
+
+    private static int countChildren(TreeArena tree, int node) {
+        int numChildren = 0;
+        for (int child = tree.getFirstChild(node); child != NONE; child = tree.getNextSibling(child)) {
+            numChildren++;
+        }
+        return numChildren;
+    }
+
+    private static SearchContext createContext(double raveEquivalence, double firstPlayUrgency,
+                                               MctsConfig.TieBreak tieBreak) {
+        return new SearchContext(null, raveEquivalence, MctsConfig.NodeBudgetPolicy.PRUNE, tieBreak,
+                firstPlayUrgency, 0.0, 0, 0.5);
+    }
+}
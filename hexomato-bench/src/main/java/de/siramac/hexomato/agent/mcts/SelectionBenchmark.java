@@ -0,0 +1,81 @@
+package de.siramac.hexomato.agent.mcts;
+
+import de.siramac.hexomato.bench.Positions;
+import de.siramac.hexomato.domain.BitBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static de.siramac.hexomato.agent.mcts.TreeArena.ROOT;
+import static de.siramac.hexomato.domain.BitBoard.NUM_CELLS;
+
+/**
+ * The selection of {@link SearchWorker}, which rates every action of a node by its upper confidence bound, in a
+ * root whose actions all have a node with visits. In this package, because the worker is package-private.
+ * - uct: plain UCT, without priors, widening and inferior cells
+ * - default: the default config, the inferior moves of the root are analysed by the first call and kept in the
+ * tree, like in the search
+ * getArgMax is the choice of the most visited action after the search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectionBenchmark {
+
+    @Param({"uct", "default"})
+    private String config;
+
+    private TreeArena tree;
+    private BitBoard position;
+    private SearchWorker worker;
+    private SearchContext context;
+    private final double[] visitsByCell = new double[NUM_CELLS];
+
+    @Setup
+    public void setUp() {
+        MctsConfig mctsConfig = config.equals("uct")
+                ? MctsConfig.builder().priorWeight(0.0).wideningMinChildren(0).pruneInferiorCells(false).build()
+                : MctsConfig.DEFAULT;
+        context = new SearchContext(null, mctsConfig.getRaveEquivalence(), mctsConfig.getNodeBudgetPolicy(),
+                mctsConfig.getTieBreak(), mctsConfig.getFirstPlayUrgency(), mctsConfig.getPriorWeight(),
+                mctsConfig.getWideningMinChildren(), mctsConfig.getWideningExponent());
+        worker = new SearchWorker(new SplittableRandom(42), mctsConfig);
+        position = Positions.toBitBoard(Positions.randomGame(42, 2));
+
+        SplittableRandom random = new SplittableRandom(42);
+        tree = new TreeArena(1 << 10, mctsConfig.getRaveEquivalence() > 0, mctsConfig.isPruneInferiorCells());
+        for (int cell : position.getValidActions()) {
+            int child = tree.addChild(ROOT, cell);
+            float visits = 1 + random.nextInt(1_000);
+            tree.addVisits(child, visits);
+            tree.addValues(child, visits * (float) random.nextDouble());
+            tree.setPrior(child, (float) random.nextDouble() / NUM_CELLS);
+            tree.addVisits(ROOT, visits);
+        }
+        tree.addChildVisits(ROOT, visitsByCell);
+    }
+
+    @Benchmark
+    public int selectAction() {
+        return worker.selectAction(tree, ROOT, position, context);
+    }
+
+    @Benchmark
+    public int getArgMax() {
+        return Util.getArgMax(visitsByCell);
+    }
+}
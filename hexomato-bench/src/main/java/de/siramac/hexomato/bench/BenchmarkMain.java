@@ -0,0 +1,41 @@
+package de.siramac.hexomato.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks and writes the results as JSON, so the results of two commits can be diffed, e.g. with
+ * https://jmh.morethan.io. Arguments: [gc] [JMH options], e.g. gc Playout:
+ * - without gc: jmh-result.json with the time or throughput of every benchmark
+ * - with gc: the same benchmarks with the GC profiler, jmh-result-gc.json also holds the allocation rate
+ * (gc.alloc.rate) and the allocated bytes per operation (gc.alloc.rate.norm) of every benchmark
+ * The JMH options override the defaults, e.g. -rff for another file or -f 3 for more forks.
+ * <p>
+ * java -jar hexomato-bench/target/benchmarks.jar gc
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        boolean gc = args.length > 0 && args[0].equals("gc");
+        CommandLineOptions commandLine = new CommandLineOptions(gc ? Arrays.copyOfRange(args, 1, args.length) : args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(gc ? "jmh-result-gc.json" : "jmh-result.json");
+        }
+        if (gc) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
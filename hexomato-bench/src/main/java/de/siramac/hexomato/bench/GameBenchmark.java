@@ -0,0 +1,81 @@
+package de.siramac.hexomato.bench;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.domain.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+
+/**
+ * The board operations of {@link Game}, which the server runs for every move:
+ * - playGame: reset to the empty board and all moves of a random game with makeMoveOnBoard, the last one
+ * wins and searches the winner path
+ * - findWinnerPath: the winner path of the finished game
+ * - reset: the deep copy of a board in the middle game
+ * - getValidActions: the empty cells of the board in the middle game
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    private static final int MIDDLE_GAME_MOVES = 40;
+
+    private int[] moves;
+    private Node[][] emptyBoard;
+    private Game game;
+    private Game finishedGame;
+    private Node winningMove;
+    private Game middleGame;
+
+    @Setup
+    public void setUp() {
+        moves = Positions.randomGameMoves(42);
+        emptyBoard = new Game(PLAYER_1, true, "Bench").getBoard();
+        game = new Game(PLAYER_1, true, "Bench");
+        finishedGame = Positions.randomGame(42, moves.length);
+        winningMove = Positions.getLastMove(finishedGame);
+        middleGame = Positions.randomGame(42, MIDDLE_GAME_MOVES);
+    }
+
+    @Benchmark
+    public Game playGame() {
+        game.reset(emptyBoard, PLAYER_1, null);
+        for (int cell : moves) {
+            game.makeMoveOnBoard(BitBoard.row(cell), BitBoard.col(cell), game.getTurn());
+        }
+        return game;
+    }
+
+    @Benchmark
+    public Set<Node> findWinnerPath() {
+        return finishedGame.findWinnerPath(finishedGame.getBoard(), winningMove, finishedGame.getWinner());
+    }
+
+    @Benchmark
+    public Game reset() {
+        game.reset(middleGame.getBoard(), middleGame.getTurn(), null);
+        return game;
+    }
+
+    @Benchmark
+    public Node[] getValidActions() {
+        return middleGame.getValidActions();
+    }
+}
@@ -0,0 +1,58 @@
+package de.siramac.hexomato.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.ws.GameWs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The game sent to the clients after every move: the construction of {@link GameWs} and its serialization
+ * to JSON with Jackson, like the server sends it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameWsBenchmark {
+
+    private static final int MIDDLE_GAME_MOVES = 40;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Game game;
+    private GameWs gameWs;
+
+    @Setup
+    public void setUp() {
+        game = Positions.randomGame(42, MIDDLE_GAME_MOVES);
+        gameWs = new GameWs(game, null);
+    }
+
+    @Benchmark
+    public GameWs create() {
+        return new GameWs(game, null);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(gameWs);
+    }
+
+    @Benchmark
+    public byte[] createAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new GameWs(game, null));
+    }
+}
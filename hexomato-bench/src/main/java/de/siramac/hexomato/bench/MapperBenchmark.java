@@ -0,0 +1,52 @@
+package de.siramac.hexomato.bench;
+
+import de.siramac.hexomato.backend.GameMapper;
+import de.siramac.hexomato.backend.entity.GameEntity;
+import de.siramac.hexomato.domain.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GameMapper#map} in both directions, for a game in the middle game. The repository maps every game
+ * it loads or saves, the database itself is not part of the benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int MIDDLE_GAME_MOVES = 40;
+
+    private final GameMapper gameMapper = new GameMapper();
+    private Game game;
+    private GameEntity gameEntity;
+
+    @Setup
+    public void setUp() {
+        game = Positions.randomGame(42, MIDDLE_GAME_MOVES);
+        gameEntity = gameMapper.map(game);
+    }
+
+    @Benchmark
+    public GameEntity mapToEntity() {
+        return gameMapper.map(game);
+    }
+
+    @Benchmark
+    public Game mapToGame() {
+        return gameMapper.map(gameEntity);
+    }
+}
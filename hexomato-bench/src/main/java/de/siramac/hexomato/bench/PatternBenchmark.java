@@ -0,0 +1,60 @@
+package de.siramac.hexomato.bench;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.domain.Node;
+import de.siramac.hexomato.pattern.PatternTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static de.siramac.hexomato.domain.BitBoard.NUM_WORDS;
+
+/**
+ * The pattern engine in a position of the middle game. {@link PatternTable#getResponses} replaced
+ * BridgePattern.getPossibleOpponentBridgeNodes: the answers of the player to move to the last move.
+ * {@link PatternTable#fillIn} finds the dead and captured cells.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternBenchmark {
+
+    private static final int MIDDLE_GAME_MOVES = 40;
+
+    private BitBoard position;
+    private int lastMove;
+    private final int[] responses = new int[PatternTable.MAX_RESPONSES];
+    private final long[] player1Cells = new long[NUM_WORDS];
+    private final long[] player2Cells = new long[NUM_WORDS];
+
+    @Setup
+    public void setUp() {
+        Game game = Positions.randomGame(42, MIDDLE_GAME_MOVES);
+        Node node = Positions.getLastMove(game);
+        position = Positions.toBitBoard(game);
+        lastMove = BitBoard.index(node.getRow(), node.getCol());
+    }
+
+    @Benchmark
+    public int getResponses() {
+        return PatternTable.getResponses(position, lastMove, position.getTurn(), responses);
+    }
+
+    @Benchmark
+    public int fillIn() {
+        return PatternTable.fillIn(position, player1Cells, player2Cells);
+    }
+}
@@ -0,0 +1,54 @@
+package de.siramac.hexomato.bench;
+
+import de.siramac.hexomato.agent.mcts.PlayoutEngine;
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Playouts per second of {@link PlayoutEngine#simulate}, which replaced the playouts of UCTNode, from the
+ * empty board and from a position in the middle game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayoutBenchmark {
+
+    @Param({"0", "30"})
+    private int numStones;
+
+    @Param({"true", "false"})
+    private boolean fillInferiorCells;
+
+    private BitBoard position;
+    private final BitBoard simulationEnv = new BitBoard();
+    private PlayoutEngine playoutEngine;
+
+    @Setup
+    public void setUp() {
+        position = Positions.toBitBoard(Positions.randomGame(42, numStones));
+        playoutEngine = new PlayoutEngine(new SplittableRandom(42), fillInferiorCells, 0);
+    }
+
+    @Benchmark
+    public Player simulate() {
+        simulationEnv.copyFrom(position);
+        return playoutEngine.simulate(simulationEnv, simulationEnv.getTurn());
+    }
+}
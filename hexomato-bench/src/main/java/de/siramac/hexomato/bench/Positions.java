@@ -0,0 +1,68 @@
+package de.siramac.hexomato.bench;
+
+import de.siramac.hexomato.domain.BitBoard;
+import de.siramac.hexomato.domain.Game;
+import de.siramac.hexomato.domain.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static de.siramac.hexomato.domain.Player.PLAYER_1;
+
+/**
+ * Reproducible positions for the benchmarks, from games of random moves.
+ */
+public class Positions {
+
+    /**
+     * Returns the cells of a random game in the order of the moves, it ends with the winning move.
+     */
+    public static int[] randomGameMoves(long seed) {
+        List<Integer> cells = new ArrayList<>();
+        for (int cell = 0; cell < BitBoard.NUM_CELLS; cell++) {
+            cells.add(cell);
+        }
+        Collections.shuffle(cells, new Random(seed));
+        BitBoard board = new BitBoard();
+        int numMoves = 0;
+        while (board.getWinner() == null) {
+            board.makeMove(cells.get(numMoves++), board.getTurn());
+        }
+        return cells.subList(0, numMoves).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the game after the first numMoves moves of the random game of seed, the last move is marked.
+     */
+    public static Game randomGame(long seed, int numMoves) {
+        int[] moves = randomGameMoves(seed);
+        Game game = new Game(PLAYER_1, true, "Bench");
+        game.setNamePlayer2("Bench");
+        for (int i = 0; i < Math.min(numMoves, moves.length); i++) {
+            game.makeFinalMoveOnBoard(BitBoard.row(moves[i]), BitBoard.col(moves[i]), game.getTurn());
+        }
+        return game;
+    }
+
+    public static BitBoard toBitBoard(Game game) {
+        BitBoard board = new BitBoard();
+        board.reset(game.getBoard(), game.getTurn(), game.getWinner());
+        return board;
+    }
+
+    /**
+     * Returns the last move of a game, null before the first move.
+     */
+    public static Node getLastMove(Game game) {
+        for (Node[] row : game.getBoard()) {
+            for (Node node : row) {
+                if (node.isLastMove()) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+}